@@ -7,7 +7,7 @@ import java.util.concurrent.TimeUnit;
 import org.nutz.ssdb4j.impl.BatchClient;
 import org.nutz.ssdb4j.impl.DefaultObjectConv;
 import org.nutz.ssdb4j.impl.SocketSSDBStream;
-import org.nutz.ssdb4j.pool2.Pool2s;
+import org.nutz.ssdb4j.fastpool.FastPools;
 import org.nutz.ssdb4j.spi.Cmd;
 import org.nutz.ssdb4j.spi.KeyValue;
 import org.nutz.ssdb4j.spi.ObjectConv;
@@ -33,7 +33,7 @@ public class SSDBClient {
 	protected ObjectConv conv;
 
 	public SSDBClient(String host, int port, int timeoutSeconds, String pass) {
-		this.stream = Pool2s.pool(host, port, timeoutSeconds, null, isBlank(pass) ? null : pass.getBytes());
+		this.stream = FastPools.pool(host, port, timeoutSeconds, null, isBlank(pass) ? null : pass.getBytes());
 		this.conv = DefaultObjectConv.me;
 	}
 
@@ -131,7 +131,7 @@ public class SSDBClient {
 
 	public int setx(Object key, Object val, int ttl) {
 		try {
-			return req(Cmd.setx, bytes(key), bytes(val), Integer.toString(ttl).getBytes()).asInt();
+			return req(Cmd.setx, bytes(key), bytes(val), SSDBs.num(ttl)).asInt();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -149,7 +149,7 @@ public class SSDBClient {
 
 	public long incr(Object key, int val) {
 		try {
-			return req(Cmd.incr, bytes(key), Integer.toString(val).getBytes()).asLong();
+			return req(Cmd.incr, bytes(key), SSDBs.num(val)).asLong();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -167,7 +167,7 @@ public class SSDBClient {
 
 	public List<String> keys(Object start, Object end, int limit) {
 		try {
-			return req(Cmd.keys, bytes(start), bytes(end), Integer.toString(limit).getBytes()).listString();
+			return req(Cmd.keys, bytes(start), bytes(end), SSDBs.num(limit)).listString();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -203,7 +203,7 @@ public class SSDBClient {
 
 	public List<KeyValue> scan(Object start, Object end, int limit) {
 		try {
-			return req(Cmd.scan, bytes(start), bytes(end), Integer.toString(limit).getBytes()).asKeyValues();
+			return req(Cmd.scan, bytes(start), bytes(end), SSDBs.num(limit)).asKeyValues();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -212,7 +212,7 @@ public class SSDBClient {
 
 	public List<KeyValue> rscan(Object start, Object end, int limit) {
 		try {
-			return req(Cmd.rscan, bytes(start), bytes(end), Integer.toString(limit).getBytes()).asKeyValues();
+			return req(Cmd.rscan, bytes(start), bytes(end), SSDBs.num(limit)).asKeyValues();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -257,7 +257,7 @@ public class SSDBClient {
 
 	public List<KeyValue> hlist(Object key, Object hkey, int limit) {
 		try {
-			return req(Cmd.hlist, bytes(key), bytes(hkey), Integer.toString(limit).getBytes()).asKeyValues();
+			return req(Cmd.hlist, bytes(key), bytes(hkey), SSDBs.num(limit)).asKeyValues();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -266,7 +266,7 @@ public class SSDBClient {
 
 	public long hincr(Object key, Object hkey, int val) {
 		try {
-			return req(Cmd.hincr, bytes(key), bytes(hkey), Integer.toString(val).getBytes()).asLong();
+			return req(Cmd.hincr, bytes(key), bytes(hkey), SSDBs.num(val)).asLong();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -275,7 +275,7 @@ public class SSDBClient {
 
 	public List<KeyValue> hscan(Object key, Object start, Object end, int limit) {
 		try {
-			return req(Cmd.hscan, bytes(key), bytes(start), bytes(end), Integer.toString(limit).getBytes())
+			return req(Cmd.hscan, bytes(key), bytes(start), bytes(end), SSDBs.num(limit))
 					.asKeyValues();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
@@ -285,7 +285,7 @@ public class SSDBClient {
 
 	public List<KeyValue> hrscan(Object key, Object start, Object end, int limit) {
 		try {
-			return req(Cmd.hrscan, bytes(key), bytes(start), bytes(end), Integer.toString(limit).getBytes())
+			return req(Cmd.hrscan, bytes(key), bytes(start), bytes(end), SSDBs.num(limit))
 					.asKeyValues();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
@@ -295,7 +295,7 @@ public class SSDBClient {
 
 	public int zset(Object key, Object zkey, long score) {
 		try {
-			return req(Cmd.zset, bytes(key), bytes(zkey), Long.toString(score).getBytes()).asInt();
+			return req(Cmd.zset, bytes(key), bytes(zkey), SSDBs.num(score)).asInt();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -322,7 +322,7 @@ public class SSDBClient {
 
 	public long zincr(Object key, Object zkey, int val) {
 		try {
-			return req(Cmd.zincr, bytes(key), bytes(zkey), Integer.toString(val).getBytes()).asLong();
+			return req(Cmd.zincr, bytes(key), bytes(zkey), SSDBs.num(val)).asLong();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -340,7 +340,7 @@ public class SSDBClient {
 
 	public List<String> zlist(Object zkey_start, Object zkey_end, int limit) {
 		try {
-			return req(Cmd.zlist, bytes(zkey_start), bytes(zkey_end), Integer.toString(limit).getBytes()).listString();
+			return req(Cmd.zlist, bytes(zkey_start), bytes(zkey_end), SSDBs.num(limit)).listString();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -368,7 +368,7 @@ public class SSDBClient {
 	public List<KeyValue> zscan(Object key, Object zkey_start, Object score_start, Object score_end, int limit) {
 		try {
 			return req(Cmd.zscan, bytes(key), bytes(zkey_start), bytes(score_start), bytes(score_end),
-					Integer.toString(limit).getBytes()).asKeyScores();
+					SSDBs.num(limit)).asKeyScores();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -378,7 +378,7 @@ public class SSDBClient {
 	public List<KeyValue> zrscan(Object key, Object zkey_start, Object score_start, Object score_end, int limit) {
 		try {
 			return req(Cmd.zrscan, bytes(key), bytes(zkey_start), bytes(score_start), bytes(score_end),
-					Integer.toString(limit).getBytes()).asKeyScores();
+					SSDBs.num(limit)).asKeyScores();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -387,7 +387,7 @@ public class SSDBClient {
 
 	public List<KeyValue> zpopfront(Object key, int limit) {
 		try {
-			return req(Cmd.zpopfront, bytes(key), Integer.toString(limit).getBytes()).asKeyScores();
+			return req(Cmd.zpopfront, bytes(key), SSDBs.num(limit)).asKeyScores();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -396,7 +396,7 @@ public class SSDBClient {
 
 	public List<KeyValue> zpopback(Object key, int limit) {
 		try {
-			return req(Cmd.zpopback, bytes(key), Integer.toString(limit).getBytes()).asKeyScores();
+			return req(Cmd.zpopback, bytes(key), SSDBs.num(limit)).asKeyScores();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -450,7 +450,7 @@ public class SSDBClient {
 
 	public List<String> qlist(Object key_start, Object key_end, int limit) {
 		try {
-			return req(Cmd.qlist, bytes(key_start), bytes(key_end), Integer.toString(limit).getBytes()).listString();
+			return req(Cmd.qlist, bytes(key_start), bytes(key_end), SSDBs.num(limit)).listString();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -468,7 +468,7 @@ public class SSDBClient {
 
 	public List<String> hkeys(Object key, Object start, Object end, int limit) {
 		try {
-			return req(Cmd.hkeys, bytes(key), bytes(start), bytes(end), Integer.toString(limit).getBytes())
+			return req(Cmd.hkeys, bytes(key), bytes(start), bytes(end), SSDBs.num(limit))
 					.listString();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
@@ -542,7 +542,7 @@ public class SSDBClient {
 	public List<String> zkeys(Object key, Object zkey_start, Object score_start, Object score_end, int limit) {
 		try {
 			return req(Cmd.zkeys, bytes(key), bytes(zkey_start), bytes(score_start), bytes(score_end),
-					Integer.toString(limit).getBytes()).listString();
+					SSDBs.num(limit)).listString();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -551,7 +551,7 @@ public class SSDBClient {
 
 	public List<KeyValue> zrange(Object key, int offset, int limit) {
 		try {
-			return req(Cmd.zrange, bytes(key), Integer.toString(offset).getBytes(), Integer.toString(limit).getBytes())
+			return req(Cmd.zrange, bytes(key), SSDBs.num(offset), SSDBs.num(limit))
 					.asKeyScores();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
@@ -561,7 +561,7 @@ public class SSDBClient {
 
 	public List<KeyValue> zrrange(Object key, int offset, int limit) {
 		try {
-			return req(Cmd.zrrange, bytes(key), Integer.toString(offset).getBytes(), Integer.toString(limit).getBytes())
+			return req(Cmd.zrrange, bytes(key), SSDBs.num(offset), SSDBs.num(limit))
 					.asKeyScores();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
@@ -701,7 +701,7 @@ public class SSDBClient {
 
 	public List<String> qslice(Object key, int start, int end) {
 		try {
-			return req(Cmd.qslice, bytes(key), Integer.toString(start).getBytes(), Integer.toString(end).getBytes())
+			return req(Cmd.qslice, bytes(key), SSDBs.num(start), SSDBs.num(end))
 					.listString();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
@@ -711,7 +711,7 @@ public class SSDBClient {
 
 	public String qget(Object key, int index) {
 		try {
-			return req(Cmd.qget, bytes(key), Integer.toString(index).getBytes()).asString();
+			return req(Cmd.qget, bytes(key), SSDBs.num(index)).asString();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -720,7 +720,7 @@ public class SSDBClient {
 
 	public int zcount(Object key, int start, int end) {
 		try {
-			return req(Cmd.zcount, bytes(key), Integer.toString(start).getBytes(), Integer.toString(end).getBytes())
+			return req(Cmd.zcount, bytes(key), SSDBs.num(start), SSDBs.num(end))
 					.asInt();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
@@ -730,7 +730,7 @@ public class SSDBClient {
 
 	public long zsum(Object key, int start, int end) {
 		try {
-			return req(Cmd.zsum, bytes(key), Integer.toString(start).getBytes(), Integer.toString(end).getBytes())
+			return req(Cmd.zsum, bytes(key), SSDBs.num(start), SSDBs.num(end))
 					.asLong();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
@@ -740,7 +740,7 @@ public class SSDBClient {
 
 	public long zavg(Object key, int start, int end) {
 		try {
-			return req(Cmd.zavg, bytes(key), Integer.toString(start).getBytes(), Integer.toString(end).getBytes())
+			return req(Cmd.zavg, bytes(key), SSDBs.num(start), SSDBs.num(end))
 					.asLong();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
@@ -840,7 +840,7 @@ public class SSDBClient {
 
 	public List<String> qrange(Object key, int begin, int limit) {
 		try {
-			return req(Cmd.qrange, bytes(key), Integer.toString(begin).getBytes(), Integer.toString(limit).getBytes())
+			return req(Cmd.qrange, bytes(key), SSDBs.num(begin), SSDBs.num(limit))
 					.listString();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
@@ -850,7 +850,7 @@ public class SSDBClient {
 
 	public int expire(Object key, int ttl) {
 		try {
-			return req(Cmd.expire, bytes(key), Integer.toString(ttl).getBytes()).asInt();
+			return req(Cmd.expire, bytes(key), SSDBs.num(ttl)).asInt();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -863,7 +863,7 @@ public class SSDBClient {
 
 	public int getbit(Object key, int offset) {
 		try {
-			return req(Cmd.getbit, bytes(key), Integer.toString(offset).getBytes()).asInt();
+			return req(Cmd.getbit, bytes(key), SSDBs.num(offset)).asInt();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -872,8 +872,8 @@ public class SSDBClient {
 
 	public int setbit(Object key, int offset, byte on) {
 		try {
-			return req(Cmd.setbit, bytes(key), Integer.toString(offset).getBytes(),
-					on == 1 ? "1".getBytes() : "0".getBytes()).asInt();
+			return req(Cmd.setbit, bytes(key), SSDBs.num(offset),
+					SSDBs.num(on == 1 ? 1 : 0)).asInt();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -882,7 +882,7 @@ public class SSDBClient {
 
 	public int countbit(Object key, int start, int size) {
 		try {
-			return req(Cmd.countbit, bytes(key), Integer.toString(start).getBytes(), Integer.toString(size).getBytes())
+			return req(Cmd.countbit, bytes(key), SSDBs.num(start), SSDBs.num(size))
 					.asInt();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
@@ -894,7 +894,7 @@ public class SSDBClient {
 		if (size < 0)
 			size = 2000000000;
 		try {
-			return req(Cmd.strlen, bytes(key), Integer.toString(start).getBytes(), Integer.toString(size).getBytes())
+			return req(Cmd.strlen, bytes(key), SSDBs.num(start), SSDBs.num(size))
 					.asInt();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
@@ -913,7 +913,7 @@ public class SSDBClient {
 
 	public List<KeyValue> hrlist(Object key, Object hkey, int limit) {
 		try {
-			return req(Cmd.hrlist, bytes(key), bytes(hkey), Integer.toString(limit).getBytes()).asKeyValues();
+			return req(Cmd.hrlist, bytes(key), bytes(hkey), SSDBs.num(limit)).asKeyValues();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -922,7 +922,7 @@ public class SSDBClient {
 
 	public boolean zrlist(Object zkey_start, Object zkey_end, int limit) {
 		try {
-			return req(Cmd.zrlist, bytes(zkey_start), bytes(zkey_end), Integer.toString(limit).getBytes()).ok();
+			return req(Cmd.zrlist, bytes(zkey_start), bytes(zkey_end), SSDBs.num(limit)).ok();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -931,7 +931,7 @@ public class SSDBClient {
 
 	public List<String> qrlist(Object key_start, Object key_end, int limit) {
 		try {
-			return req(Cmd.qrlist, bytes(key_start), bytes(key_end), Integer.toString(limit).getBytes()).listString();
+			return req(Cmd.qrlist, bytes(key_start), bytes(key_end), SSDBs.num(limit)).listString();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -949,7 +949,7 @@ public class SSDBClient {
 
 	public int qtrimBack(Object key, int size) {
 		try {
-			return req(Cmd.qtrim_back, bytes(key), Integer.toString(size).getBytes()).asInt();
+			return req(Cmd.qtrim_back, bytes(key), SSDBs.num(size)).asInt();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -958,7 +958,7 @@ public class SSDBClient {
 
 	public int qtrimFront(Object key, int size) {
 		try {
-			return req(Cmd.qtrim_front, bytes(key), Integer.toString(size).getBytes()).asInt();
+			return req(Cmd.qtrim_front, bytes(key), SSDBs.num(size)).asInt();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -977,7 +977,7 @@ public class SSDBClient {
 
 	public boolean qset(Object key, int index, Object value) {
 		try {
-			return req(Cmd.qset, bytes(key), Integer.toString(index).getBytes(), bytes(value)).ok();
+			return req(Cmd.qset, bytes(key), SSDBs.num(index), bytes(value)).ok();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -986,7 +986,7 @@ public class SSDBClient {
 
 	public List<String> qpopBack(Object key, int limit) {
 		try {
-			return req(Cmd.qpop_back, bytes(key), Integer.toString(limit).getBytes()).listString();
+			return req(Cmd.qpop_back, bytes(key), SSDBs.num(limit)).listString();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -995,7 +995,7 @@ public class SSDBClient {
 
 	public List<String> qpopFront(Object key, int limit) {
 		try {
-			return req(Cmd.qpop_front, bytes(key), Integer.toString(limit).getBytes()).listString();
+			return req(Cmd.qpop_front, bytes(key), SSDBs.num(limit)).listString();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
@@ -1006,7 +1006,7 @@ public class SSDBClient {
 
 	public List<String> rkeys(Object start, Object end, int limit) {
 		try {
-			return req(Cmd.rkeys, bytes(start), bytes(end), Integer.toString(limit).getBytes()).listString();
+			return req(Cmd.rkeys, bytes(start), bytes(end), SSDBs.num(limit)).listString();
 		} catch (Exception e) {
 			LOGGER.error("ssdb操作发生异常", e);
 		}
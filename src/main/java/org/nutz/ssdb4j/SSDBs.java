@@ -4,16 +4,37 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import org.nutz.ssdb4j.impl.AsyncClient;
+import org.nutz.ssdb4j.impl.SSDBInputStream;
+import org.nutz.ssdb4j.impl.SSDBOutputStream;
 import org.nutz.ssdb4j.impl.SimpleClient;
-import org.nutz.ssdb4j.pool.PoolSSDBStream;
+import org.nutz.ssdb4j.impl.SocketSSDBStream;
+import org.nutz.ssdb4j.impl.UnixSocketSSDBStream;
+import org.nutz.ssdb4j.nio.NioSSDBStream;
+import org.nutz.ssdb4j.pipeline.PipelineSSDBStream;
+import org.nutz.ssdb4j.fastpool.FastPoolConfig;
+import org.nutz.ssdb4j.fastpool.FastPools;
 import org.nutz.ssdb4j.pool.Pools;
+import org.nutz.ssdb4j.pool2.Pool2s;
+import org.nutz.ssdb4j.replication.FailoverSSDBStream;
+import org.nutz.ssdb4j.replication.LoadBalancer;
+import org.nutz.ssdb4j.replication.Replica;
 import org.nutz.ssdb4j.replication.ReplicationSSDMStream;
+import org.nutz.ssdb4j.shard.ShardedSSDBStream;
+import org.nutz.ssdb4j.spi.AsyncSSDB;
+import org.nutz.ssdb4j.spi.BufferResponse;
 import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.ConnectionOptions;
 import org.nutz.ssdb4j.spi.Response;
 import org.nutz.ssdb4j.spi.ResponseFactory;
 import org.nutz.ssdb4j.spi.SSDB;
 import org.nutz.ssdb4j.spi.SSDBException;
+import org.nutz.ssdb4j.spi.SSDBStream;
 
 /**
  * 封装最常用的SSDB创建方法和协议实现
@@ -35,6 +56,14 @@ public class SSDBs {
 	public static final byte[] EMPTY_ARG = new byte[0];
 	
 	public static ResponseFactory respFactory = new ResponseFactory();
+	
+	private static final int NUM_CACHE_MIN = -128;
+	private static final int NUM_CACHE_MAX = 1024;
+	private static final byte[][] NUM_CACHE = new byte[NUM_CACHE_MAX - NUM_CACHE_MIN + 1][];
+	static {
+		for (int i = NUM_CACHE_MIN; i <= NUM_CACHE_MAX; i++)
+			NUM_CACHE[i - NUM_CACHE_MIN] = Integer.toString(i).getBytes();
+	}
 
 	/**
 	 * 使用默认配置生成一个单连接的客户端
@@ -53,12 +82,43 @@ public class SSDBs {
 		return new SimpleClient(host, port, timeout);
 	}
 	
+	/**
+	 * 指定配置生成一个单连接的客户端
+	 * @param host 主机名
+	 * @param port 端口
+	 * @param options 连接参数
+	 * @param auth 鉴权信息
+	 */
+	public static final SSDB simple(String host, int port, ConnectionOptions options, byte[] auth) {
+		return new SimpleClient(new SocketSSDBStream(host, port, options, auth));
+	}
+	
+	/**
+	 * 生成一个通过Unix domain socket连接本机ssdb的单连接客户端, 需要JDK16+
+	 * @param path socket文件的路径
+	 * @param auth 鉴权信息
+	 */
+	public static final SSDB unix(String path, byte[] auth) {
+		return new SimpleClient(new UnixSocketSSDBStream(path, auth));
+	}
+	
+	/**
+	 * 生成一个通过Unix domain socket连接本机ssdb且使用连接池的客户端, 需要JDK16+
+	 * @param path socket文件的路径
+	 * @param options 连接参数, 只有缓冲区大小有效
+	 * @param config 连接池配置信息,如果为空,则使用默认值
+	 * @param auth 鉴权信息
+	 */
+	public static final SSDB unix(String path, ConnectionOptions options, FastPoolConfig config, byte[] auth) {
+		return new SimpleClient(FastPools.unix(path, options == null ? new ConnectionOptions() : options, config, auth));
+	}
+	
 	/**
 	 * 指定配置生成一个使用连接池的客户端
 	 * @param host 主机名
 	 * @param port 端口
 	 * @param timeout 超时设置
-	 * @param config 连接池配置信息,如果为空,则使用默认值
+	 * @param config 连接池配置信息,可以是FastPoolConfig或commons-pool 1.x/2.x的配置,如果为空,则使用默认值
 	 */
 	public static final SSDB pool(String host, int port, int timeout, Object config) {
 		return pool(host, port, timeout, config, null);
@@ -75,9 +135,114 @@ public class SSDBs {
     public static final SSDB pool(String host, int port, int timeout, Object config, byte[] auth) {
         return new SimpleClient(_pool(host, port, timeout, config, auth));
     }
+    
+    /**
+     * 指定配置生成一个使用连接池的客户端,并在返回前按配置中的minIdle并行建立连接
+     * @param host 主机名
+     * @param port 端口
+     * @param timeout 超时设置
+     * @param config 连接池配置信息,如果为空,则使用默认值
+     * @param auth 鉴权信息
+     * @param warmUpTimeout 等待预热完成的最长时间,单位毫秒, 0表示在后台预热而不等待
+     * @throws SSDBException 预热超时或失败
+     */
+    public static final SSDB pool(String host, int port, int timeout, Object config, byte[] auth, long warmUpTimeout) {
+        return new SimpleClient(_pool(host, port, timeout, config, auth, warmUpTimeout));
+    }
+    
+    /**
+     * 指定配置生成一个使用连接池的客户端
+     * @param host 主机名
+     * @param port 端口
+     * @param options 每个连接的参数
+     * @param config 连接池配置信息,如果为空,则使用默认值
+     * @param auth 鉴权信息
+     */
+    public static final SSDB pool(String host, int port, ConnectionOptions options, Object config, byte[] auth) {
+        return new SimpleClient(_pool(host, port, options, config, auth));
+    }
+    
+    /**
+     * 指定配置生成一个使用连接池的客户端,并在返回前按配置中的minIdle并行建立连接
+     * @param host 主机名
+     * @param port 端口
+     * @param options 每个连接的参数
+     * @param config 连接池配置信息,如果为空,则使用默认值
+     * @param auth 鉴权信息
+     * @param warmUpTimeout 等待预热完成的最长时间,单位毫秒, 0表示在后台预热而不等待
+     * @throws SSDBException 预热超时或失败
+     */
+    public static final SSDB pool(String host, int port, ConnectionOptions options, Object config, byte[] auth, long warmUpTimeout) {
+        return new SimpleClient(_pool(host, port, options, config, auth, warmUpTimeout));
+    }
+	
+	/**
+	 * 指定配置生成一个固定连接数的客户端, 线程在信号量上排队等待连接, 适合大量虚拟线程
+	 * @param host 主机名
+	 * @param port 端口
+	 * @param options 连接参数
+	 * @param connections 连接数
+	 * @param auth 鉴权信息
+	 */
+	public static final SSDB fixed(String host, int port, ConnectionOptions options, int connections, byte[] auth) {
+		return new SimpleClient(FastPools.fixed(host, port, options, connections, -1, auth));
+	}
+	
+	/**
+	 * 指定配置生成一个共享连接(pipeline)的客户端,多个线程可同时在同一连接上发出请求
+	 * @param host 主机名
+	 * @param port 端口
+	 * @param timeout 超时设置
+	 * @param connections 共享连接的数量
+	 * @param auth 鉴权信息
+	 */
+	public static final SSDB pipeline(String host, int port, int timeout, int connections, byte[] auth) {
+		return new SimpleClient(new PipelineSSDBStream(host, port, timeout, auth, connections));
+	}
 	
-	protected static final PoolSSDBStream _pool(String host, int port, int timeout, Object config, byte[] auth) {
-		return Pools.pool(host, port, timeout, config, auth);
+	/**
+	 * 指定配置生成一个基于NIO的客户端,IO由共享的事件循环线程组完成
+	 * @param host 主机名
+	 * @param port 端口
+	 * @param timeout 超时设置
+	 * @param auth 鉴权信息
+	 */
+	public static final SSDB nio(String host, int port, int timeout, byte[] auth) {
+		return new SimpleClient(new NioSSDBStream(host, port, timeout, auth));
+	}
+	
+	/**
+	 * 指定配置生成一个异步客户端,底层为基于NIO的连接
+	 * @param host 主机名
+	 * @param port 端口
+	 * @param timeout 超时设置
+	 * @param auth 鉴权信息
+	 */
+	public static final AsyncSSDB async(String host, int port, int timeout, byte[] auth) {
+		return new AsyncClient(new NioSSDBStream(host, port, timeout, auth));
+	}
+	
+	protected static final SSDBStream _pool(String host, int port, int timeout, Object config, byte[] auth) {
+		return _pool(host, port, new ConnectionOptions(timeout), config, auth);
+	}
+	
+	protected static final SSDBStream _pool(String host, int port, int timeout, Object config, byte[] auth, long warmUpTimeout) {
+		return _pool(host, port, new ConnectionOptions(timeout), config, auth, warmUpTimeout);
+	}
+	
+	protected static final SSDBStream _pool(String host, int port, ConnectionOptions options, Object config, byte[] auth) {
+		if (config == null || config instanceof FastPoolConfig)
+			return FastPools.pool(host, port, options, (FastPoolConfig)config, auth);
+		return _pool(host, port, options, config, auth, 0);
+	}
+	
+	protected static final SSDBStream _pool(String host, int port, ConnectionOptions options, Object config, byte[] auth, long warmUpTimeout) {
+		if (config == null || config instanceof FastPoolConfig)
+			return FastPools.pool(host, port, options, (FastPoolConfig)config, auth, warmUpTimeout);
+		// commons-pool是可选依赖,按类名判断以免加载不存在的类
+		if (config.getClass().getName().startsWith("org.apache.commons.pool2."))
+			return Pool2s.pool(host, port, options, config, auth, warmUpTimeout);
+		return Pools.pool(host, port, options, config, auth, warmUpTimeout);
 	}
 	
 	/**
@@ -106,11 +271,90 @@ public class SSDBs {
      * @param slaveAuth  副服务器的鉴权信息
      */
 	public static final SSDB replication(String masterHost, int masterPort, String slaveHost, int slavePort, int timeout, Object config, byte[] masterAuth, byte[] slaveAuth) {
-        PoolSSDBStream master = _pool(masterHost, masterPort, timeout, config, masterAuth);
-        PoolSSDBStream slave = _pool(slaveHost, slavePort, timeout, config, slaveAuth);
+        SSDBStream master = _pool(masterHost, masterPort, timeout, config, masterAuth);
+        SSDBStream slave = _pool(slaveHost, slavePort, timeout, config, slaveAuth);
         return new SimpleClient(new ReplicationSSDMStream(master, slave));
     }
 	
+	/**
+	 * 按指定配置生成一主多从且使用连接池的客户端, 读请求按负载均衡策略分配到各从库
+	 * @param master  主服务器的地址, 格式为host:port
+	 * @param slaves  从服务器的地址, 格式为host:port
+	 * @param timeout 超时设置
+	 * @param config  连接池配置信息,如果为空,则使用默认值
+	 * @param balancer 负载均衡策略,见LoadBalancers,如果为空,则轮询
+	 * @param auth    鉴权信息,主从相同
+	 */
+	public static final SSDB replication(String master, String[] slaves, int timeout, Object config, LoadBalancer balancer, byte[] auth) {
+		return new SimpleClient(replicationStream(master, slaves, timeout, config, balancer, auth));
+	}
+	
+	/**
+	 * 与replication相同, 但返回底层的ReplicationSSDMStream, 以便设置复制落后量采样(monitorLag)或为不同调用方生成视图(withMaxLag)
+	 */
+	public static final ReplicationSSDMStream replicationStream(String master, String[] slaves, int timeout, Object config, LoadBalancer balancer, byte[] auth) {
+		Replica[] replicas = new Replica[slaves.length];
+		for (int i = 0; i < slaves.length; i++)
+			replicas[i] = new Replica(slaves[i], _pool(host(slaves[i]), port(slaves[i]), timeout, config, auth));
+		return new ReplicationSSDMStream(_pool(host(master), port(master), timeout, config, auth), replicas, balancer);
+	}
+	
+	/**
+	 * 按指定配置生成能自动跟随主库切换的客户端
+	 * @param candidates 可能成为主库的节点地址, 格式为host:port, 初始时以第一个为主库
+	 * @param timeout 超时设置
+	 * @param config  连接池配置信息,如果为空,则使用默认值
+	 * @param auth    鉴权信息
+	 * @param period  后台探测的间隔,单位毫秒, 不大于0时只在请求出错后探测
+	 */
+	public static final SSDB failover(String[] candidates, int timeout, Object config, byte[] auth, long period) {
+		return new SimpleClient(failoverStream(candidates, timeout, config, auth, period));
+	}
+	
+	/**
+	 * 与failover相同, 但返回底层的FailoverSSDBStream, 可作为ReplicationSSDMStream的master
+	 */
+	public static final FailoverSSDBStream failoverStream(String[] candidates, int timeout, Object config, byte[] auth, long period) {
+		SSDBStream[] streams = new SSDBStream[candidates.length];
+		for (int i = 0; i < candidates.length; i++)
+			streams[i] = _pool(host(candidates[i]), port(candidates[i]), timeout, config, auth);
+		FailoverSSDBStream stream = new FailoverSSDBStream(candidates, streams);
+		if (period > 0)
+			stream.monitor(period);
+		return stream;
+	}
+	
+	/**
+	 * 按指定配置生成分片的客户端, 单键命令按一致性哈希分配到各节点
+	 * @param shards  各节点的地址, 格式为host:port, 同时作为节点在哈希环上的名称
+	 * @param timeout 超时设置
+	 * @param config  连接池配置信息,如果为空,则使用默认值
+	 * @param auth    鉴权信息
+	 */
+	public static final SSDB sharded(String[] shards, int timeout, Object config, byte[] auth) {
+		return new SimpleClient(shardedStream(shards, timeout, config, auth));
+	}
+	
+	/**
+	 * 与sharded相同, 但返回底层的ShardedSSDBStream, 以便增删节点
+	 */
+	public static final ShardedSSDBStream shardedStream(String[] shards, int timeout, Object config, byte[] auth) {
+		SSDBStream[] streams = new SSDBStream[shards.length];
+		for (int i = 0; i < shards.length; i++)
+			streams[i] = _pool(host(shards[i]), port(shards[i]), timeout, config, auth);
+		return new ShardedSSDBStream(shards, streams);
+	}
+	
+	protected static String host(String address) {
+		int index = address.lastIndexOf(':');
+		return index < 0 ? address : address.substring(0, index);
+	}
+	
+	protected static int port(String address) {
+		int index = address.lastIndexOf(':');
+		return index < 0 ? DEFAULT_PORT : Integer.parseInt(address.substring(index + 1));
+	}
+	
 	/**
 	 * 
 	 * 从流中读取一个块(ssdb通信协议中定义的Block)
@@ -121,10 +365,30 @@ public class SSDBs {
 	 * @throws SSDBException 读取到非预期值的时候抛错协议错误
 	 */
 	public static byte[] readBlock(InputStream in) throws IOException {
+		if (in instanceof SSDBInputStream)
+			return ((SSDBInputStream) in).readBlock();
+		int len = readLength(in);
+		if (len < 0)
+			return null;
+		byte[] data = new byte[len];
+		readFully(in, data, 0, len);
+		int d = in.read();
+		if (d != '\n')
+			throw new SSDBException("protocol error. unexpect byte=" + d);
+		return data;
+	}
+	
+	/**
+	 * 读取Block的长度行
+	 * @return 块长度,如果首字节为回车(\n)则返回-1
+	 */
+	protected static int readLength(InputStream in) throws IOException {
+		if (in instanceof SSDBInputStream)
+			return ((SSDBInputStream) in).readLength();
 		int len = 0;
 		int d = in.read();
 		if (d == '\n')
-			return null;
+			return -1;
 		else if (d >= '0' && d <= '9')
 			len = len * 10 + (d - '0');
 		else
@@ -138,22 +402,23 @@ public class SSDBs {
 			else
 				throw new SSDBException("protocol error. unexpect byte=" + d);
 		}
-		byte[] data = new byte[len];
-		if (len > 0) {
-			int count = 0;
-			int r = 0;
-			while (count < len) {
-				r = in.read(data, count, len - count > 8192 ? 8192 : len - count);
-				if (r > 0) {
-					count += r;
-				} else if (r == -1)
-					throw new SSDBException("protocol error. unexpect stream end!");
-			}
+		return len;
+	}
+	
+	protected static void readFully(InputStream in, byte[] data, int off, int len) throws IOException {
+		if (in instanceof SSDBInputStream) {
+			((SSDBInputStream) in).readFully(data, off, len);
+			return;
+		}
+		int count = 0;
+		int r = 0;
+		while (count < len) {
+			r = in.read(data, off + count, len - count > 8192 ? 8192 : len - count);
+			if (r > 0) {
+				count += r;
+			} else if (r == -1)
+				throw new SSDBException("protocol error. unexpect stream end!");
 		}
-		d = in.read();
-		if (d != '\n')
-			throw new SSDBException("protocol error. unexpect byte=" + d);
-		return data;
 	}
 	
 	/**
@@ -164,9 +429,13 @@ public class SSDBs {
 	 * @throws IOException 常规IO异常
 	 */
 	public static void writeBlock(OutputStream out, byte[] data) throws IOException {
+		if (out instanceof SSDBOutputStream) {
+			((SSDBOutputStream) out).writeBlock(data);
+			return;
+		}
 		if (data == null)
 			data = EMPTY_ARG;
-		out.write(Integer.toString(data.length).getBytes());
+		out.write(num(data.length));
 		out.write('\n');
 		out.write(data);
 		out.write('\n');
@@ -181,12 +450,28 @@ public class SSDBs {
 	 * @throws IOException 常规IO异常
 	 */
 	public static void sendCmd(OutputStream out, Cmd cmd, byte[] ... vals) throws IOException {
-		SSDBs.writeBlock(out, cmd.bytes());
+		writeCmd(out, cmd, vals);
+		out.flush();
+	}
+	
+	/**
+	 * 向输出流写入一个命令及其参数,但不执行flush,用于一次性发送多个命令(pipeline)
+	 * <p></p><b>如果本方法抛异常,应立即关闭输出流</b>
+	 * @param out 输出流
+	 * @param cmd 命令类型
+	 * @param vals 命令的参数
+	 * @throws IOException 常规IO异常
+	 */
+	public static void writeCmd(OutputStream out, Cmd cmd, byte[] ... vals) throws IOException {
+		if (out instanceof SSDBOutputStream) {
+			((SSDBOutputStream) out).writeCmd(cmd, vals);
+			return;
+		}
+		out.write(cmd.header());
 		for (byte[] bs : vals) {
 			SSDBs.writeBlock(out, bs);
 		}
 		out.write('\n');
-		out.flush();
 	}
 	
 	/**
@@ -199,10 +484,12 @@ public class SSDBs {
 	 */
 	public static Response readResp(InputStream in) throws IOException {
 		Response resp = respFactory.make();
+		if (resp instanceof BufferResponse)
+			return readResp(in, (BufferResponse) resp);
 		byte[] data = SSDBs.readBlock(in);
 		if (data == null)
 			throw new SSDBException("protocol error. unexpect \\n");
-		resp.stat = new String(data);
+		resp.stat = status(data, 0, data.length);
 		while (true) {
 			data = SSDBs.readBlock(in);
 			if (data == null)
@@ -212,6 +499,104 @@ public class SSDBs {
 		return resp;
 	}
 	
+	/**
+	 * 从输入流读取一个响应,全部数据块直接读入BufferResponse的缓冲区
+	 * <p></p><b>如果本方法抛异常,应立即关闭输入流</b>
+	 * @param in 输入流
+	 * @param resp 用于保存响应的空BufferResponse
+	 * @return 传入的resp
+	 * @throws IOException 常规IO异常
+	 * @throws SSDBException 读取到非预期值的时候抛错协议错误
+	 */
+	public static Response readResp(InputStream in, BufferResponse resp) throws IOException {
+		while (true) {
+			int len = readLength(in);
+			if (len < 0) {
+				if (resp.stat == null)
+					throw new SSDBException("protocol error. unexpect \\n");
+				return resp;
+			}
+			int off = resp.reserve(len);
+			readFully(in, resp.buffer(), off, len);
+			int d = in.read();
+			if (d != '\n')
+				throw new SSDBException("protocol error. unexpect byte=" + d);
+			if (resp.stat == null)
+				resp.stat = status(resp.buffer(), off, len);
+		}
+	}
+	
+	private static final String[] STATUS = {"ok", "not_found", "error", "fail", "client_error"};
+	private static final byte[][] STATUS_BYTES = new byte[STATUS.length][];
+	static {
+		for (int i = 0; i < STATUS.length; i++)
+			STATUS_BYTES[i] = STATUS[i].getBytes();
+	}
+	
+	/**
+	 * 把状态块转为字符串,常见状态直接返回常量,不再分配新的String
+	 */
+	public static String status(byte[] buf, int off, int len) {
+		outer: for (int i = 0; i < STATUS_BYTES.length; i++) {
+			byte[] bs = STATUS_BYTES[i];
+			if (bs.length != len)
+				continue;
+			for (int j = 0; j < len; j++)
+				if (buf[off + j] != bs[j])
+					continue outer;
+			return STATUS[i];
+		}
+		return new String(buf, off, len);
+	}
+	
+	/**
+	 * 等待一个异步请求的响应
+	 * @param future 异步请求
+	 * @param timeout 最长等待时间,单位毫秒, 不大于0时一直等待, 与Socket的读超时含义相同
+	 * @param cmd 对应的命令,用于异常信息
+	 * @return ssdb标准响应
+	 * @throws SSDBException 超时,被中断或请求失败
+	 */
+	public static Response await(Future<Response> future, long timeout, Cmd cmd) {
+		try {
+			if (timeout <= 0)
+				return future.get();
+			return future.get(timeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(false);
+			throw new SSDBException("timeout, cmd=" + cmd.getName());
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SSDBException)
+				throw (SSDBException) e.getCause();
+			throw new SSDBException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SSDBException(e);
+		}
+	}
+	
+	/**
+	 * 整数参数的十进制字节形式,常用的小整数(如limit)直接返回缓存,不分配新数组
+	 * <p></p><b>返回的数组可能是共享的,不可修改</b>
+	 */
+	public static byte[] num(long n) {
+		if (n >= NUM_CACHE_MIN && n <= NUM_CACHE_MAX)
+			return NUM_CACHE[(int) n - NUM_CACHE_MIN];
+		return Long.toString(n).getBytes();
+	}
+	
+	/**
+	 * 非负整数的十进制位数
+	 */
+	public static int digits(int n) {
+		int d = 1;
+		while (n >= 10) {
+			n /= 10;
+			d++;
+		}
+		return d;
+	}
+	
 	/**
 	 * 版本号
 	 * @return 版本号
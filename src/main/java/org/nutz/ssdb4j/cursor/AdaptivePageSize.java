@@ -0,0 +1,56 @@
+package org.nutz.ssdb4j.cursor;
+
+/**
+ * 根据每页的耗时和数据量自动调整分页大小.
+ * <p></p>一页很快返回且数据量不大时加倍,超过目标耗时或数据量时减半,始终在[min, max]之间
+ *
+ */
+public class AdaptivePageSize {
+
+	protected int min;
+	protected int max;
+	protected long targetNanos;
+	protected long maxBytes;
+	protected volatile int current;
+
+	/**
+	 * 默认: 100~10000条, 目标每页50ms, 每页最多4MB, 初始100条
+	 */
+	public AdaptivePageSize() {
+		this(100, 10000, 50, 4 * 1024 * 1024);
+	}
+
+	/**
+	 * @param min 最小每页条数
+	 * @param max 最大每页条数
+	 * @param targetMillis 每页的目标耗时,单位毫秒
+	 * @param maxBytes 每页的最大数据量
+	 */
+	public AdaptivePageSize(int min, int max, long targetMillis, long maxBytes) {
+		if (min < 1 || max < min)
+			throw new IllegalArgumentException("need 0 < min <= max");
+		this.min = min;
+		this.max = max;
+		this.targetNanos = targetMillis * 1000000L;
+		this.maxBytes = maxBytes;
+		this.current = min;
+	}
+
+	public int get() {
+		return current;
+	}
+
+	/**
+	 * 记录一页的结果
+	 * @param nanos 本页耗时
+	 * @param bytes 本页数据量
+	 */
+	public void update(long nanos, long bytes) {
+		int size = current;
+		if (nanos > targetNanos || bytes > maxBytes)
+			size = Math.max(min, size / 2);
+		else if (nanos < targetNanos / 2 && bytes < maxBytes / 2)
+			size = (int) Math.min(max, size * 2L);
+		current = size;
+	}
+}
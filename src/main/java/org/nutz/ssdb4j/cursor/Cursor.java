@@ -0,0 +1,127 @@
+package org.nutz.ssdb4j.cursor;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.nutz.ssdb4j.spi.Response;
+import org.nutz.ssdb4j.spi.SSDB;
+import org.nutz.ssdb4j.spi.SSDBException;
+
+/**
+ * 自动翻页的游标. 拿到一页后立即在后台预取下一页,网络延迟与处理当前页的时间重叠.
+ * <p></p>游标只能遍历一次,iterator()返回自身
+ *
+ * @param <T> 元素类型
+ */
+public abstract class Cursor<T> implements Iterator<T>, Iterable<T> {
+
+	protected SSDB ssdb;
+	protected Executor executor = Cursors.executor();
+	protected AdaptivePageSize pageSize = new AdaptivePageSize();
+
+	protected Iterator<T> page = Collections.<T> emptyIterator();
+	protected CompletableFuture<List<T>> next;
+	/** 最后取到的一页不满,已没有更多数据. 只在取页任务中写入 */
+	protected boolean done;
+
+	protected Cursor(SSDB ssdb) {
+		this.ssdb = ssdb;
+	}
+
+	/**
+	 * 从当前位置取一页
+	 */
+	protected abstract Response fetch(int limit);
+
+	protected abstract List<T> decode(Response resp);
+
+	/**
+	 * 把当前位置移到一页之后
+	 */
+	protected abstract void advance(List<T> page);
+
+	public boolean hasNext() {
+		while (!page.hasNext()) {
+			if (next == null) {
+				if (done)
+					return false;
+				next = prefetch();
+			}
+			List<T> list;
+			try {
+				list = next.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof SSDBException)
+					throw (SSDBException) e.getCause();
+				throw new SSDBException(e.getCause());
+			} finally {
+				next = null;
+			}
+			page = list.iterator();
+			if (!done)
+				next = prefetch();
+		}
+		return true;
+	}
+
+	public T next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		return page.next();
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	public Iterator<T> iterator() {
+		return this;
+	}
+
+	public Stream<T> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	protected CompletableFuture<List<T>> prefetch() {
+		return CompletableFuture.supplyAsync(new Supplier<List<T>>() {
+			public List<T> get() {
+				return fetchPage();
+			}
+		}, executor);
+	}
+
+	protected List<T> fetchPage() {
+		int limit = pageSize.get();
+		long start = System.nanoTime();
+		Response resp = fetch(limit).check();
+		long nanos = System.nanoTime() - start;
+		long bytes = 0;
+		for (int i = 0; i < resp.size(); i++)
+			bytes += resp.len(i);
+		pageSize.update(nanos, bytes);
+		List<T> list = decode(resp);
+		if (list.size() < limit)
+			done = true;
+		else
+			advance(list);
+		return list;
+	}
+
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	public void setPageSize(AdaptivePageSize pageSize) {
+		this.pageSize = pageSize;
+	}
+}
@@ -0,0 +1,191 @@
+package org.nutz.ssdb4j.cursor;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.nutz.ssdb4j.impl.DefaultObjectConv;
+import org.nutz.ssdb4j.spi.KeyValue;
+import org.nutz.ssdb4j.spi.Response;
+import org.nutz.ssdb4j.spi.SSDB;
+
+/**
+ * 常用遍历命令的游标, 例如:
+ * <p></p>Cursors.scan(ssdb, "user:", "user:~").stream().filter(...).count()
+ *
+ */
+public class Cursors {
+
+	private static ExecutorService executor;
+
+	/**
+	 * 游标默认使用的预取线程池
+	 */
+	public static synchronized ExecutorService executor() {
+		if (executor == null)
+			executor = Executors.newCachedThreadPool(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = Executors.defaultThreadFactory().newThread(r);
+					thread.setName("ssdb4j-cursor-" + thread.getId());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		return executor;
+	}
+
+	/**
+	 * 遍历(start, end]之间的键值对, end为空时不限制
+	 */
+	public static Cursor<KeyValue> scan(SSDB ssdb, final Object start, final Object end) {
+		return new Cursor<KeyValue>(ssdb) {
+			Object from = start;
+
+			protected Response fetch(int limit) {
+				return ssdb.scan(from, end, limit);
+			}
+
+			protected List<KeyValue> decode(Response resp) {
+				return resp.asKeyValues();
+			}
+
+			protected void advance(List<KeyValue> page) {
+				from = page.get(page.size() - 1).getKey();
+			}
+		};
+	}
+
+	/**
+	 * 并行遍历整个kv键空间, 区间边界通过key_range命令获取
+	 */
+	public static Stream<KeyValue> parallelScan(SSDB ssdb) {
+		List<String> range = ssdb.key_range().check().listString();
+		if (range.size() < 2 || range.get(1).length() == 0)
+			return Stream.empty();
+		return parallelScan(ssdb, "", range.get(0), range.get(1));
+	}
+
+	/**
+	 * 并行遍历(start, end]之间的键值对, 区间按字节序递归二分到fork-join线程池的各个线程上
+	 * @param ssdb 客户端,应使用连接池
+	 * @param start 起点(不包含)
+	 * @param low 区间内已知的最小键, 不知道时与start相同
+	 * @param end 终点(包含), 不能为空
+	 */
+	public static Stream<KeyValue> parallelScan(SSDB ssdb, Object start, Object low, Object end) {
+		byte[] from = DefaultObjectConv.me.bytes(start);
+		return StreamSupport.stream(new KeyRangeSpliterator(ssdb, from, DefaultObjectConv.me.bytes(low),
+				DefaultObjectConv.me.bytes(end), Long.MAX_VALUE), true);
+	}
+
+	/**
+	 * 反向遍历[end, start)之间的键值对
+	 */
+	public static Cursor<KeyValue> rscan(SSDB ssdb, final Object start, final Object end) {
+		return new Cursor<KeyValue>(ssdb) {
+			Object from = start;
+
+			protected Response fetch(int limit) {
+				return ssdb.rscan(from, end, limit);
+			}
+
+			protected List<KeyValue> decode(Response resp) {
+				return resp.asKeyValues();
+			}
+
+			protected void advance(List<KeyValue> page) {
+				from = page.get(page.size() - 1).getKey();
+			}
+		};
+	}
+
+	/**
+	 * 遍历(start, end]之间的键
+	 */
+	public static Cursor<String> keys(SSDB ssdb, final Object start, final Object end) {
+		return new Cursor<String>(ssdb) {
+			Object from = start;
+
+			protected Response fetch(int limit) {
+				return ssdb.keys(from, end, limit);
+			}
+
+			protected List<String> decode(Response resp) {
+				return resp.listString();
+			}
+
+			protected void advance(List<String> page) {
+				from = page.get(page.size() - 1);
+			}
+		};
+	}
+
+	/**
+	 * 遍历一个hash中(start, end]之间的键值对
+	 */
+	public static Cursor<KeyValue> hscan(SSDB ssdb, final Object key, final Object start, final Object end) {
+		return new Cursor<KeyValue>(ssdb) {
+			Object from = start;
+
+			protected Response fetch(int limit) {
+				return ssdb.hscan(key, from, end, limit);
+			}
+
+			protected List<KeyValue> decode(Response resp) {
+				return resp.asKeyValues();
+			}
+
+			protected void advance(List<KeyValue> page) {
+				from = page.get(page.size() - 1).getKey();
+			}
+		};
+	}
+
+	/**
+	 * 按分数遍历一个zset中[score_start, score_end]之间的成员, KeyValue的值为分数
+	 */
+	public static Cursor<KeyValue> zscan(SSDB ssdb, final Object key, final Object score_start, final Object score_end) {
+		return new Cursor<KeyValue>(ssdb) {
+			Object zkey = "";
+			Object score = score_start;
+
+			protected Response fetch(int limit) {
+				return ssdb.zscan(key, zkey, score, score_end, limit);
+			}
+
+			protected List<KeyValue> decode(Response resp) {
+				return resp.asKeyScores();
+			}
+
+			protected void advance(List<KeyValue> page) {
+				KeyValue last = page.get(page.size() - 1);
+				zkey = last.getKey();
+				score = last.getScore();
+			}
+		};
+	}
+
+	/**
+	 * 从头到尾遍历一个队列
+	 */
+	public static Cursor<String> qrange(SSDB ssdb, final Object key) {
+		return new Cursor<String>(ssdb) {
+			int offset;
+
+			protected Response fetch(int limit) {
+				return ssdb.qrange(key, offset, limit);
+			}
+
+			protected List<String> decode(Response resp) {
+				return resp.listString();
+			}
+
+			protected void advance(List<String> page) {
+				offset += page.size();
+			}
+		};
+	}
+}
@@ -0,0 +1,113 @@
+package org.nutz.ssdb4j.cursor;
+
+import java.math.BigInteger;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.nutz.ssdb4j.spi.KeyValue;
+import org.nutz.ssdb4j.spi.SSDB;
+
+/**
+ * 按字节序递归二分键区间(start, end]的Spliterator, 每个子区间用独立的scan游标遍历.
+ * <p></p>配合连接池客户端使用时, 并行流的每个工作线程各自占用一个连接
+ *
+ */
+public class KeyRangeSpliterator implements Spliterator<KeyValue> {
+
+	protected SSDB ssdb;
+	/** scan的起点(不包含) */
+	protected byte[] start;
+	/** 计算中点时使用的下界, 不小于start */
+	protected byte[] low;
+	/** scan的终点(包含) */
+	protected byte[] end;
+	protected long estimate;
+	protected Cursor<KeyValue> cursor;
+
+	/**
+	 * @param ssdb 客户端
+	 * @param start 起点(不包含)
+	 * @param low 区间内已知的最小键, 用于更均匀地二分, 不知道时与start相同
+	 * @param end 终点(包含), 不能为空
+	 * @param estimate 区间内的键数估计, 未知时为Long.MAX_VALUE
+	 */
+	public KeyRangeSpliterator(SSDB ssdb, byte[] start, byte[] low, byte[] end, long estimate) {
+		if (end == null || end.length == 0)
+			throw new IllegalArgumentException("end must not empty");
+		this.ssdb = ssdb;
+		this.start = start;
+		this.low = compare(low, start) < 0 ? start : low;
+		this.end = end;
+		this.estimate = estimate;
+	}
+
+	public boolean tryAdvance(Consumer<? super KeyValue> action) {
+		if (cursor == null)
+			cursor = Cursors.scan(ssdb, start, end);
+		if (!cursor.hasNext())
+			return false;
+		action.accept(cursor.next());
+		return true;
+	}
+
+	public Spliterator<KeyValue> trySplit() {
+		if (cursor != null)
+			return null;
+		byte[] mid = middle(low, end);
+		if (mid == null || compare(mid, low) <= 0 || compare(mid, end) >= 0)
+			return null;
+		estimate >>>= 1;
+		KeyRangeSpliterator prefix = new KeyRangeSpliterator(ssdb, start, low, mid, estimate);
+		start = mid;
+		low = mid;
+		return prefix;
+	}
+
+	public long estimateSize() {
+		return estimate;
+	}
+
+	public int characteristics() {
+		return ORDERED | DISTINCT | NONNULL;
+	}
+
+	/**
+	 * 把两个键看作以256为基数的小数,取其平均值
+	 */
+	static byte[] middle(byte[] a, byte[] b) {
+		int len = Math.max(a.length, b.length) + 1;
+		BigInteger sum = number(a, len).add(number(b, len));
+		byte[] bs = sum.shiftRight(1).toByteArray();
+		// toByteArray是有符号的大端表示, 对齐到len个字节
+		byte[] mid = new byte[len];
+		int n = Math.min(len, bs.length);
+		System.arraycopy(bs, bs.length - n, mid, len - n, n);
+		int size = len;
+		while (size > 0 && mid[size - 1] == 0)
+			size--;
+		if (size == len)
+			return mid;
+		byte[] trim = new byte[size];
+		System.arraycopy(mid, 0, trim, 0, size);
+		return trim;
+	}
+
+	static BigInteger number(byte[] key, int len) {
+		byte[] bs = new byte[len + 1];
+		System.arraycopy(key, 0, bs, 1, key.length);
+		return new BigInteger(bs);
+	}
+
+	/**
+	 * 按无符号字节序比较
+	 */
+	static int compare(byte[] a, byte[] b) {
+		int n = Math.min(a.length, b.length);
+		for (int i = 0; i < n; i++) {
+			int d = (a[i] & 0xff) - (b[i] & 0xff);
+			if (d != 0)
+				return d;
+		}
+		return a.length - b.length;
+	}
+}
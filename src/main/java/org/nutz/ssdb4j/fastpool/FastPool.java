@@ -0,0 +1,429 @@
+package org.nutz.ssdb4j.fastpool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.SSDBException;
+import org.nutz.ssdb4j.spi.SSDBStream;
+import org.nutz.ssdb4j.spi.SSDBStreamFactory;
+
+/**
+ * 无锁的连接池.
+ * <p></p>借出时依次尝试: 当前线程上次使用的连接 -> 从与线程相关的位置开始扫描空闲连接 -> 新建连接 -> 等待归还.
+ * 前三步只有CAS,不加锁也不分配对象,只有连接耗尽需要等待时才使用锁.
+ *
+ */
+public class FastPool implements Closeable {
+
+	protected SSDBStreamFactory factory;
+	protected FastPoolConfig config;
+
+	protected AtomicReferenceArray<PooledSSDBStream> slots;
+	protected AtomicInteger total = new AtomicInteger();
+	protected ThreadLocal<PooledSSDBStream> local = new ThreadLocal<PooledSSDBStream>();
+	protected volatile boolean closed;
+
+	protected ReentrantLock lock = new ReentrantLock();
+	protected Condition released = lock.newCondition();
+	protected AtomicInteger waiters = new AtomicInteger();
+
+	protected PoolMetrics metrics;
+	protected volatile PoolListener[] listeners;
+	protected ObjectName objectName;
+	protected volatile CompletableFuture<Void> ready = CompletableFuture.completedFuture(null);
+
+	public FastPool(SSDBStreamFactory factory, FastPoolConfig config) {
+		this.factory = factory;
+		this.config = config == null ? new FastPoolConfig() : config;
+		this.slots = new AtomicReferenceArray<PooledSSDBStream>(this.config.getMaxTotal());
+		this.metrics = new PoolMetrics(this);
+		this.listeners = new PoolListener[]{metrics};
+		if (this.config.getJmxName() != null)
+			registerMBean(this.config.getJmxName());
+	}
+
+	public PooledSSDBStream borrow() {
+		long start = System.nanoTime();
+		while (true) {
+			PooledSSDBStream stream = tryBorrow();
+			if (stream == null)
+				stream = await(start);
+			if (!needTest(stream) || test(stream)) {
+				long wait = System.nanoTime() - start;
+				for (PoolListener listener : listeners)
+					listener.onBorrow(wait);
+				return stream;
+			}
+			for (PoolListener listener : listeners)
+				listener.onValidationFailure();
+			invalidate(stream);
+		}
+	}
+
+	protected PooledSSDBStream tryBorrow() {
+		if (closed)
+			throw new SSDBException("pool closed");
+		if (config.isThreadAffinity()) {
+			PooledSSDBStream stream = local.get();
+			if (stream != null && stream.compareAndSet(PooledSSDBStream.IDLE, PooledSSDBStream.BUSY))
+				return stream;
+		}
+		PooledSSDBStream stream = scan();
+		if (stream != null)
+			return stream;
+		return create();
+	}
+
+	/**
+	 * 从与当前线程相关的位置开始扫描,不同线程的起点错开,减少CAS冲突
+	 */
+	protected PooledSSDBStream scan() {
+		int n = slots.length();
+		int start = (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 33) % n;
+		for (int i = 0; i < n; i++) {
+			int index = start + i;
+			if (index >= n)
+				index -= n;
+			PooledSSDBStream stream = slots.get(index);
+			if (stream != null && stream.compareAndSet(PooledSSDBStream.IDLE, PooledSSDBStream.BUSY))
+				return stream;
+		}
+		return null;
+	}
+
+	protected PooledSSDBStream create() {
+		while (true) {
+			int t = total.get();
+			if (t >= slots.length())
+				return null;
+			if (total.compareAndSet(t, t + 1))
+				break;
+		}
+		SSDBStream stream;
+		try {
+			stream = factory.create();
+		} catch (RuntimeException e) {
+			total.decrementAndGet();
+			signal();
+			throw e;
+		}
+		for (PoolListener listener : listeners)
+			listener.onCreate();
+		// 连接数未超过上限时一定有空位,空位在连接数减少之前就已释放
+		for (int i = 0;; i = (i + 1) % slots.length()) {
+			if (slots.get(i) == null) {
+				PooledSSDBStream pooled = new PooledSSDBStream(stream, i);
+				if (slots.compareAndSet(i, null, pooled)) {
+					// 建立连接期间连接池被关闭(如预热超时), 不能再放入池中
+					if (closed) {
+						invalidate(pooled);
+						throw new SSDBException("pool closed");
+					}
+					return pooled;
+				}
+			}
+		}
+	}
+
+	protected PooledSSDBStream await(long start) {
+		long wait = config.getMaxWaitMillis();
+		long nanos = TimeUnit.MILLISECONDS.toNanos(wait) - (System.nanoTime() - start);
+		waiters.incrementAndGet();
+		lock.lock();
+		try {
+			while (true) {
+				PooledSSDBStream stream = tryBorrow();
+				if (stream != null)
+					return stream;
+				if (wait < 0) {
+					released.await();
+				} else {
+					if (nanos <= 0) {
+						for (PoolListener listener : listeners)
+							listener.onTimeout(System.nanoTime() - start);
+						throw new SSDBException("pool exhausted, maxTotal=" + slots.length());
+					}
+					nanos = released.awaitNanos(nanos);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SSDBException(e);
+		} finally {
+			lock.unlock();
+			waiters.decrementAndGet();
+		}
+	}
+
+	protected boolean needTest(PooledSSDBStream stream) {
+		if (config.isTestOnBorrow())
+			return true;
+		return config.isTestWhileIdle()
+				&& System.nanoTime() - stream.idleSince > TimeUnit.MILLISECONDS.toNanos(config.getIdleTestMillis());
+	}
+
+	protected boolean test(PooledSSDBStream stream) {
+		try {
+			return stream.req(Cmd.ping).ok();
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 归还连接
+	 */
+	public void release(PooledSSDBStream stream) {
+		if (closed) {
+			invalidate(stream);
+			return;
+		}
+		if (config.isThreadAffinity())
+			local.set(stream);
+		if (config.isTestWhileIdle())
+			stream.idleSince = System.nanoTime();
+		idle(stream);
+		signal();
+	}
+
+	/**
+	 * 请求出错后归还连接. 能自行重连的连接照常归还, 避免服务器重启时大量销毁和新建连接, 其他连接则销毁
+	 */
+	public void recover(PooledSSDBStream stream) {
+		if (stream.reconnectable)
+			release(stream);
+		else
+			invalidate(stream);
+	}
+
+	/**
+	 * 关闭并移除一个已损坏的连接
+	 */
+	public void invalidate(PooledSSDBStream stream) {
+		if (stream.getAndSet(PooledSSDBStream.DEAD) == PooledSSDBStream.DEAD)
+			return;
+		if (slots.compareAndSet(stream.slot, stream, null))
+			total.decrementAndGet();
+		try {
+			stream.close();
+		} catch (IOException e) {
+		}
+		for (PoolListener listener : listeners)
+			listener.onDestroy();
+		signal();
+	}
+
+	/**
+	 * 新建一个连接并放入池中, 连接数已满时什么都不做
+	 * @return 是否新建了连接
+	 */
+	public boolean addIdle() {
+		if (closed)
+			return false;
+		PooledSSDBStream stream = create();
+		if (stream == null)
+			return false;
+		idle(stream);
+		signal();
+		return true;
+	}
+
+	/**
+	 * 把连接置为空闲. 若此时连接池已关闭, close中的清理可能已经扫过这个位置, 由这里负责关闭
+	 */
+	protected void idle(PooledSSDBStream stream) {
+		stream.set(PooledSSDBStream.IDLE);
+		if (closed && stream.compareAndSet(PooledSSDBStream.IDLE, PooledSSDBStream.BUSY))
+			invalidate(stream);
+	}
+
+	/**
+	 * 并行地预先建立count个连接(连同鉴权), 返回的Future在全部完成后结束, 任何一个连接失败则以该异常结束
+	 * <p></p>预热未完成前连接池照常可用, isReady/awaitReady可用于就绪检查
+	 */
+	public synchronized CompletableFuture<Void> warmUp(int count) {
+		count = Math.min(count, slots.length()) - total.get();
+		if (count <= 0)
+			return ready;
+		final ExecutorService es = Executors.newFixedThreadPool(Math.min(count, 16), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "ssdb4j-warmup");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		CompletableFuture<?>[] fs = new CompletableFuture<?>[count];
+		for (int i = 0; i < count; i++) {
+			fs[i] = CompletableFuture.runAsync(new Runnable() {
+				public void run() {
+					addIdle();
+				}
+			}, es);
+		}
+		es.shutdown();
+		ready = CompletableFuture.allOf(fs);
+		return ready;
+	}
+
+	/**
+	 * 预热并在timeout毫秒内等待完成,超时或失败时抛出SSDBException. timeout不大于0时只在后台预热
+	 */
+	public void warmUp(int count, long timeout) {
+		warmUp(count);
+		if (timeout > 0 && !awaitReady(timeout, TimeUnit.MILLISECONDS))
+			throw new SSDBException("warm up timeout, ready=" + getNumIdle() + "/" + count);
+	}
+
+	public boolean isReady() {
+		CompletableFuture<Void> f = ready;
+		return f.isDone() && !f.isCompletedExceptionally();
+	}
+
+	/**
+	 * 等待预热完成
+	 * @return 是否在时间内完成
+	 * @throws SSDBException 预热失败
+	 */
+	public boolean awaitReady(long timeout, TimeUnit unit) {
+		try {
+			ready.get(timeout, unit);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SSDBException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SSDBException)
+				throw (SSDBException) e.getCause();
+			throw new SSDBException(e.getCause());
+		}
+	}
+
+	/**
+	 * 添加一个监听器
+	 */
+	public synchronized void addListener(PoolListener listener) {
+		PoolListener[] tmp = new PoolListener[listeners.length + 1];
+		System.arraycopy(listeners, 0, tmp, 0, listeners.length);
+		tmp[listeners.length] = listener;
+		listeners = tmp;
+	}
+
+	public synchronized void removeListener(PoolListener listener) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				PoolListener[] tmp = new PoolListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, tmp, 0, i);
+				System.arraycopy(listeners, i + 1, tmp, i, tmp.length - i);
+				listeners = tmp;
+				return;
+			}
+		}
+	}
+
+	public PoolMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * 以org.nutz.ssdb4j:type=FastPool,name=xxx注册到平台MBeanServer,重名时自动加上序号
+	 */
+	public synchronized void registerMBean(String name) {
+		if (objectName != null)
+			return;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for (int i = 1;; i++) {
+			try {
+				ObjectName on = new ObjectName("org.nutz.ssdb4j:type=FastPool,name=" + ObjectName.quote(i == 1 ? name : name + "-" + i));
+				server.registerMBean(metrics, on);
+				objectName = on;
+				return;
+			} catch (InstanceAlreadyExistsException e) {
+			} catch (Exception e) {
+				throw new SSDBException(e);
+			}
+		}
+	}
+
+	public synchronized void unregisterMBean() {
+		if (objectName == null)
+			return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (Exception e) {
+		}
+		objectName = null;
+	}
+
+	protected void signal() {
+		if (waiters.get() > 0) {
+			lock.lock();
+			try {
+				released.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	public int getNumActive() {
+		int count = 0;
+		for (int i = 0; i < slots.length(); i++) {
+			PooledSSDBStream stream = slots.get(i);
+			if (stream != null && stream.get() == PooledSSDBStream.BUSY)
+				count++;
+		}
+		return count;
+	}
+
+	public int getNumIdle() {
+		int count = 0;
+		for (int i = 0; i < slots.length(); i++) {
+			PooledSSDBStream stream = slots.get(i);
+			if (stream != null && stream.get() == PooledSSDBStream.IDLE)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * 关闭所有空闲连接,借出的连接在归还时关闭
+	 */
+	public void clear() {
+		for (int i = 0; i < slots.length(); i++) {
+			PooledSSDBStream stream = slots.get(i);
+			if (stream != null && stream.compareAndSet(PooledSSDBStream.IDLE, PooledSSDBStream.BUSY))
+				invalidate(stream);
+		}
+	}
+
+	public void close() throws IOException {
+		closed = true;
+		unregisterMBean();
+		clear();
+		lock.lock();
+		try {
+			released.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+}
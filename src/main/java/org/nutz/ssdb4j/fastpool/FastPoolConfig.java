@@ -0,0 +1,101 @@
+package org.nutz.ssdb4j.fastpool;
+
+/**
+ * FastPool的配置
+ *
+ */
+public class FastPoolConfig {
+
+	/** 最大连接数 */
+	private int maxTotal = 20;
+	/** 启动时预先建立的连接数 */
+	private int minIdle;
+	/** 启动时等待预热完成的最长时间,单位毫秒, 0表示在后台预热而不等待 */
+	private long warmUpTimeoutMillis;
+	/** 连接耗尽时的最长等待时间,单位毫秒, 负数表示一直等待, 0表示不等待 */
+	private long maxWaitMillis = -1;
+	/** 借出时是否先用ping检查连接 */
+	private boolean testOnBorrow;
+	/** 借出时是否用ping检查空闲超过idleTestMillis的连接 */
+	private boolean testWhileIdle;
+	/** testWhileIdle时, 空闲超过多少毫秒的连接需要检查 */
+	private long idleTestMillis = 30000;
+	/** 是否优先复用当前线程上次使用的连接 */
+	private boolean threadAffinity = true;
+	/** 注册到JMX时使用的名称, 为空则不注册. 注册后须close连接池, 否则会被MBeanServer一直引用 */
+	private String jmxName;
+
+	public int getMaxTotal() {
+		return maxTotal;
+	}
+
+	public void setMaxTotal(int maxTotal) {
+		if (maxTotal < 1)
+			throw new IllegalArgumentException("maxTotal must bigger than 0");
+		this.maxTotal = maxTotal;
+	}
+
+	public int getMinIdle() {
+		return minIdle;
+	}
+
+	public void setMinIdle(int minIdle) {
+		this.minIdle = minIdle;
+	}
+
+	public long getWarmUpTimeoutMillis() {
+		return warmUpTimeoutMillis;
+	}
+
+	public void setWarmUpTimeoutMillis(long warmUpTimeoutMillis) {
+		this.warmUpTimeoutMillis = warmUpTimeoutMillis;
+	}
+
+	public long getMaxWaitMillis() {
+		return maxWaitMillis;
+	}
+
+	public void setMaxWaitMillis(long maxWaitMillis) {
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+	public boolean isTestOnBorrow() {
+		return testOnBorrow;
+	}
+
+	public void setTestOnBorrow(boolean testOnBorrow) {
+		this.testOnBorrow = testOnBorrow;
+	}
+
+	public boolean isTestWhileIdle() {
+		return testWhileIdle;
+	}
+
+	public void setTestWhileIdle(boolean testWhileIdle) {
+		this.testWhileIdle = testWhileIdle;
+	}
+
+	public long getIdleTestMillis() {
+		return idleTestMillis;
+	}
+
+	public void setIdleTestMillis(long idleTestMillis) {
+		this.idleTestMillis = idleTestMillis;
+	}
+
+	public boolean isThreadAffinity() {
+		return threadAffinity;
+	}
+
+	public void setThreadAffinity(boolean threadAffinity) {
+		this.threadAffinity = threadAffinity;
+	}
+
+	public String getJmxName() {
+		return jmxName;
+	}
+
+	public void setJmxName(String jmxName) {
+		this.jmxName = jmxName;
+	}
+}
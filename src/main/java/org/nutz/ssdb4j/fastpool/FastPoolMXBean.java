@@ -0,0 +1,50 @@
+package org.nutz.ssdb4j.fastpool;
+
+/**
+ * 通过JMX暴露的连接池状态,时间单位均为微秒
+ *
+ */
+public interface FastPoolMXBean {
+
+	int getMaxTotal();
+
+	int getNumActive();
+
+	int getNumIdle();
+
+	/**正在等待连接的线程数*/
+	int getNumWaiters();
+
+	/**借出中的连接占最大连接数的比例*/
+	double getUtilization();
+
+	long getBorrowCount();
+
+	long getCreatedCount();
+
+	long getDestroyedCount();
+
+	/**启动以来平均每秒新建的连接数*/
+	double getCreateRate();
+
+	/**启动以来平均每秒关闭的连接数*/
+	double getDestroyRate();
+
+	long getValidationFailures();
+
+	long getTimeouts();
+
+	long getMeanBorrowWaitMicros();
+
+	long getMaxBorrowWaitMicros();
+
+	/**借出等待时间的99分位,精度为2的幂*/
+	long getBorrowWait99thMicros();
+
+	/**
+	 * 借出等待时间的直方图, 第i个元素为等待时间在[2^(i-1), 2^i)微秒内的次数, 第0个元素为不足1微秒的次数
+	 */
+	long[] getBorrowWaitHistogram();
+
+	void resetStatistics();
+}
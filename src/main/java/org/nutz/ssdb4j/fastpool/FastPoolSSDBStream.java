@@ -0,0 +1,74 @@
+package org.nutz.ssdb4j.fastpool;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.nutz.ssdb4j.SSDBs;
+import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.Response;
+import org.nutz.ssdb4j.spi.SSDBStream;
+import org.nutz.ssdb4j.spi.SSDBStreamCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class FastPoolSSDBStream implements SSDBStream {
+
+	static final Logger LOG = LoggerFactory.getLogger(FastPoolSSDBStream.class);
+
+	protected FastPool pool;
+
+	public FastPoolSSDBStream(FastPool pool) {
+		this.pool = pool;
+	}
+
+	public Response req(Cmd cmd, byte[]... vals) {
+		PooledSSDBStream steam = pool.borrow();
+		Response resp;
+		try {
+			resp = steam.req(cmd, vals);
+		} catch (RuntimeException e) {
+			pool.recover(steam);
+			throw e;
+		}
+		pool.release(steam);
+		if (LOG.isDebugEnabled())
+			LOG.debug("【" + cmd.getName() + "】" + resp.stat
+					+ (vals.length > 0 ? "【" + new String(vals[0], SSDBs.DEFAULT_CHARSET) + "】" : "") + "："
+					+ resp.asString());
+		return resp;
+	}
+
+	public void callback(SSDBStreamCallback callback) {
+		PooledSSDBStream steam = pool.borrow();
+		try {
+			steam.callback(callback);
+		} catch (RuntimeException e) {
+			pool.recover(steam);
+			throw e;
+		}
+		pool.release(steam);
+	}
+
+	public FastPool getPool() {
+		return pool;
+	}
+
+	public PoolMetrics getMetrics() {
+		return pool.getMetrics();
+	}
+
+	public boolean isReady() {
+		return pool.isReady();
+	}
+
+	/**
+	 * 等待启动预热完成, 可用于就绪检查
+	 */
+	public boolean awaitReady(long timeout, TimeUnit unit) {
+		return pool.awaitReady(timeout, unit);
+	}
+
+	public void close() throws IOException {
+		pool.close();
+	}
+}
@@ -0,0 +1,109 @@
+package org.nutz.ssdb4j.fastpool;
+
+import java.io.IOException;
+
+import org.nutz.ssdb4j.impl.SocketSSDBStream;
+import org.nutz.ssdb4j.impl.UnixSocketSSDBStream;
+import org.nutz.ssdb4j.spi.ConnectionOptions;
+import org.nutz.ssdb4j.spi.SSDBException;
+import org.nutz.ssdb4j.spi.SSDBStream;
+import org.nutz.ssdb4j.spi.SSDBStreamFactory;
+
+public class FastPools {
+
+	public static FastPoolSSDBStream pool(final String host, final int port, final int timeout, FastPoolConfig cnf) {
+		return pool(host, port, timeout, cnf, null);
+	}
+
+	public static FastPoolSSDBStream pool(final String host, final int port, final int timeout, FastPoolConfig cnf, final byte[] auth) {
+		return new FastPoolSSDBStream(create(host, port, timeout, cnf, auth));
+	}
+
+	/**
+	 * @param warmUpTimeout 启动时等待预热完成的最长时间,单位毫秒, 覆盖配置中的值
+	 */
+	public static FastPoolSSDBStream pool(final String host, final int port, final int timeout, FastPoolConfig cnf, final byte[] auth, long warmUpTimeout) {
+		return new FastPoolSSDBStream(create(host, port, timeout, cnf, auth, warmUpTimeout));
+	}
+
+	public static FastPoolSSDBStream pool(final String host, final int port, final ConnectionOptions options, FastPoolConfig cnf, final byte[] auth) {
+		return pool(host, port, options, cnf, auth, cnf == null ? 0 : cnf.getWarmUpTimeoutMillis());
+	}
+
+	public static FastPoolSSDBStream pool(final String host, final int port, final ConnectionOptions options, FastPoolConfig cnf, final byte[] auth, long warmUpTimeout) {
+		return new FastPoolSSDBStream(create(host, port, options, cnf, auth, warmUpTimeout));
+	}
+
+	public static FastPool create(final String host, final int port, final int timeout, FastPoolConfig cnf, final byte[] auth) {
+		return create(host, port, timeout, cnf, auth, cnf == null ? 0 : cnf.getWarmUpTimeoutMillis());
+	}
+
+	public static FastPool create(final String host, final int port, final int timeout, FastPoolConfig cnf, final byte[] auth, long warmUpTimeout) {
+		return create(host, port, new ConnectionOptions(timeout), cnf, auth, warmUpTimeout);
+	}
+
+	/**
+	 * 创建连接池并按minIdle预热
+	 * @param options 每个连接的参数
+	 * @throws SSDBException 预热超时或失败,此时连接池已关闭
+	 */
+	public static FastPool create(final String host, final int port, final ConnectionOptions options, FastPoolConfig cnf, final byte[] auth, long warmUpTimeout) {
+		if (cnf == null)
+			cnf = new FastPoolConfig();
+		FastPool pool = new FastPool(new SSDBStreamFactory() {
+			public SSDBStream create() {
+				SocketSSDBStream stream = new SocketSSDBStream(host, port, options, auth);
+				stream.connect();
+				return stream;
+			}
+		}, cnf);
+		return warmUp(pool, cnf, warmUpTimeout);
+	}
+
+	/**
+	 * 创建固定连接数、用信号量排队的连接池, 适合大量虚拟线程
+	 * @param connections 连接数
+	 * @param maxWaitMillis 等待空闲连接的最长时间, 负数表示一直等待
+	 */
+	public static FixedPoolSSDBStream fixed(final String host, final int port, final ConnectionOptions options, int connections, long maxWaitMillis, final byte[] auth) {
+		return new FixedPoolSSDBStream(new SSDBStreamFactory() {
+			public SSDBStream create() {
+				SocketSSDBStream stream = new SocketSSDBStream(host, port, options, auth);
+				stream.connect();
+				return stream;
+			}
+		}, connections, maxWaitMillis, false);
+	}
+
+	/**
+	 * 创建通过Unix domain socket连接的连接池, 需要JDK16+
+	 * @param path socket文件的路径
+	 */
+	public static FastPoolSSDBStream unix(final String path, final ConnectionOptions options, FastPoolConfig cnf, final byte[] auth) {
+		if (cnf == null)
+			cnf = new FastPoolConfig();
+		FastPool pool = new FastPool(new SSDBStreamFactory() {
+			public SSDBStream create() {
+				UnixSocketSSDBStream stream = new UnixSocketSSDBStream(path, options, auth);
+				stream.connect();
+				return stream;
+			}
+		}, cnf);
+		return new FastPoolSSDBStream(warmUp(pool, cnf, cnf.getWarmUpTimeoutMillis()));
+	}
+
+	protected static FastPool warmUp(FastPool pool, FastPoolConfig cnf, long warmUpTimeout) {
+		if (cnf.getMinIdle() > 0) {
+			try {
+				pool.warmUp(cnf.getMinIdle(), warmUpTimeout);
+			} catch (SSDBException e) {
+				try {
+					pool.close();
+				} catch (IOException e1) {
+				}
+				throw e;
+			}
+		}
+		return pool;
+	}
+}
@@ -0,0 +1,136 @@
+package org.nutz.ssdb4j.fastpool;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.Response;
+import org.nutz.ssdb4j.spi.SSDBException;
+import org.nutz.ssdb4j.spi.SSDBStream;
+import org.nutz.ssdb4j.spi.SSDBStreamCallback;
+import org.nutz.ssdb4j.spi.SSDBStreamFactory;
+
+/**
+ * 固定数量的连接, 用信号量限制同时使用连接的线程数, 适合成千上万个虚拟线程共享少量连接.
+ * <p></p>拿到许可的线程一定能通过CAS占到一个空闲连接, 排队的线程只停在信号量上, 全程不使用synchronized.
+ * 连接在第一次使用时建立, 出错后不销毁, 由连接自行重连
+ */
+public class FixedPoolSSDBStream implements SSDBStream {
+
+	protected SSDBStreamFactory factory;
+	protected AtomicReferenceArray<SSDBStream> streams;
+	protected AtomicIntegerArray busy;
+	protected Semaphore permits;
+	protected long maxWaitMillis;
+	protected volatile boolean closed;
+
+	/**
+	 * @param connections 连接数
+	 * @param maxWaitMillis 等待空闲连接的最长时间, 负数表示一直等待
+	 * @param fair 是否按先来后到分配连接, 公平模式下尾延迟更稳定但吞吐略低
+	 */
+	public FixedPoolSSDBStream(SSDBStreamFactory factory, int connections, long maxWaitMillis, boolean fair) {
+		if (connections < 1)
+			throw new IllegalArgumentException("connections must bigger than 0");
+		this.factory = factory;
+		this.streams = new AtomicReferenceArray<SSDBStream>(connections);
+		this.busy = new AtomicIntegerArray(connections);
+		this.permits = new Semaphore(connections, fair);
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+	public Response req(Cmd cmd, byte[]... vals) {
+		int index = acquire();
+		try {
+			return stream(index).req(cmd, vals);
+		} finally {
+			release(index);
+		}
+	}
+
+	public void callback(SSDBStreamCallback callback) {
+		int index = acquire();
+		try {
+			stream(index).callback(callback);
+		} finally {
+			release(index);
+		}
+	}
+
+	protected int acquire() {
+		if (closed)
+			throw new SSDBException("pool closed");
+		try {
+			if (maxWaitMillis < 0)
+				permits.acquire();
+			else if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS))
+				throw new SSDBException("pool exhausted, connections=" + busy.length());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SSDBException(e);
+		}
+		int n = busy.length();
+		int start = (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 33) % n;
+		// 许可数与连接数相同,持有许可时必有空闲连接,但可能需要多扫几轮
+		for (int i = start;; i = i + 1 == n ? 0 : i + 1) {
+			if (busy.get(i) == 0 && busy.compareAndSet(i, 0, 1))
+				return i;
+		}
+	}
+
+	protected void release(int index) {
+		busy.set(index, 0);
+		permits.release();
+	}
+
+	/**
+	 * 只有占用了该位置的线程会调用,所以无需加锁
+	 */
+	protected SSDBStream stream(int index) {
+		SSDBStream stream = streams.get(index);
+		if (stream == null) {
+			stream = factory.create();
+			streams.set(index, stream);
+			// close()可能已经扫过这个位置, 由这里负责关闭新建的连接
+			if (closed && streams.compareAndSet(index, stream, null)) {
+				try {
+					stream.close();
+				} catch (IOException e) {
+				}
+				throw new SSDBException("pool closed");
+			}
+		}
+		return stream;
+	}
+
+	public int getNumActive() {
+		return busy.length() - permits.availablePermits();
+	}
+
+	/**
+	 * 等待连接的线程数的估计值
+	 */
+	public int getNumWaiters() {
+		return permits.getQueueLength();
+	}
+
+	public void close() throws IOException {
+		closed = true;
+		IOException error = null;
+		for (int i = 0; i < streams.length(); i++) {
+			SSDBStream stream = streams.getAndSet(i, null);
+			if (stream == null)
+				continue;
+			try {
+				stream.close();
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+		if (error != null)
+			throw error;
+	}
+}
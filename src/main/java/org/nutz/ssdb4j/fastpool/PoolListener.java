@@ -0,0 +1,27 @@
+package org.nutz.ssdb4j.fastpool;
+
+/**
+ * 连接池事件监听器,可用于对接外部的监控系统.
+ * <p></p>回调在借还连接的线程中同步执行,实现必须足够轻量且不能抛出异常
+ *
+ */
+public interface PoolListener {
+
+	/**
+	 * 成功借出一个连接
+	 * @param waitNanos 从开始借到借出所花的时间,包括新建连接和等待归还
+	 */
+	void onBorrow(long waitNanos);
+
+	/**等待超时,未能借出连接*/
+	void onTimeout(long waitNanos);
+
+	/**新建了一个连接*/
+	void onCreate();
+
+	/**关闭并移除了一个连接*/
+	void onDestroy();
+
+	/**借出前的ping检查失败*/
+	void onValidationFailure();
+}
@@ -0,0 +1,164 @@
+package org.nutz.ssdb4j.fastpool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * FastPool自带的统计, 借出等待时间按2的幂分桶,记录时无锁也不分配对象
+ *
+ */
+public class PoolMetrics implements PoolListener, FastPoolMXBean {
+
+	static final int BUCKETS = 40;
+
+	protected FastPool pool;
+	protected volatile long since = System.nanoTime();
+
+	protected LongAdder borrows = new LongAdder();
+	protected LongAdder waitNanos = new LongAdder();
+	protected AtomicLong maxWaitNanos = new AtomicLong();
+	protected AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+	protected LongAdder created = new LongAdder();
+	protected LongAdder destroyed = new LongAdder();
+	protected LongAdder validationFailures = new LongAdder();
+	protected LongAdder timeouts = new LongAdder();
+
+	public PoolMetrics(FastPool pool) {
+		this.pool = pool;
+	}
+
+	public void onBorrow(long waitNanos) {
+		borrows.increment();
+		this.waitNanos.add(waitNanos);
+		long micros = waitNanos / 1000;
+		histogram.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+		long max = maxWaitNanos.get();
+		while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos))
+			max = maxWaitNanos.get();
+	}
+
+	public void onTimeout(long waitNanos) {
+		timeouts.increment();
+	}
+
+	public void onCreate() {
+		created.increment();
+	}
+
+	public void onDestroy() {
+		destroyed.increment();
+	}
+
+	public void onValidationFailure() {
+		validationFailures.increment();
+	}
+
+	public int getMaxTotal() {
+		return pool.config.getMaxTotal();
+	}
+
+	public int getNumActive() {
+		return pool.getNumActive();
+	}
+
+	public int getNumIdle() {
+		return pool.getNumIdle();
+	}
+
+	public int getNumWaiters() {
+		return pool.waiters.get();
+	}
+
+	public double getUtilization() {
+		return (double) getNumActive() / getMaxTotal();
+	}
+
+	public long getBorrowCount() {
+		return borrows.sum();
+	}
+
+	public long getCreatedCount() {
+		return created.sum();
+	}
+
+	public long getDestroyedCount() {
+		return destroyed.sum();
+	}
+
+	public double getCreateRate() {
+		return rate(created.sum());
+	}
+
+	public double getDestroyRate() {
+		return rate(destroyed.sum());
+	}
+
+	protected double rate(long count) {
+		long nanos = System.nanoTime() - since;
+		return nanos <= 0 ? 0 : count * 1e9 / nanos;
+	}
+
+	public long getValidationFailures() {
+		return validationFailures.sum();
+	}
+
+	public long getTimeouts() {
+		return timeouts.sum();
+	}
+
+	public long getMeanBorrowWaitMicros() {
+		long count = borrows.sum();
+		return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(waitNanos.sum() / count);
+	}
+
+	public long getMaxBorrowWaitMicros() {
+		return TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get());
+	}
+
+	public long getBorrowWait99thMicros() {
+		return percentile(0.99);
+	}
+
+	/**
+	 * 按直方图估算借出等待时间的分位数,返回所在桶的上界
+	 * @param p 0到1之间
+	 */
+	public long percentile(double p) {
+		long[] counts = getBorrowWaitHistogram();
+		long total = 0;
+		for (long count : counts)
+			total += count;
+		if (total == 0)
+			return 0;
+		long rank = (long) Math.ceil(total * p);
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return 1L << i;
+		}
+		return 1L << (counts.length - 1);
+	}
+
+	public long[] getBorrowWaitHistogram() {
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++)
+			counts[i] = histogram.get(i);
+		return counts;
+	}
+
+	public void resetStatistics() {
+		since = System.nanoTime();
+		borrows.reset();
+		waitNanos.reset();
+		maxWaitNanos.set(0);
+		for (int i = 0; i < BUCKETS; i++)
+			histogram.set(i, 0);
+		created.reset();
+		destroyed.reset();
+		validationFailures.reset();
+		timeouts.reset();
+	}
+}
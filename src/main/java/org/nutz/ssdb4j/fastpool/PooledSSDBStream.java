@@ -0,0 +1,52 @@
+package org.nutz.ssdb4j.fastpool;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.nutz.ssdb4j.impl.SocketSSDBStream;
+import org.nutz.ssdb4j.impl.UnixSocketSSDBStream;
+import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.Response;
+import org.nutz.ssdb4j.spi.SSDBStream;
+import org.nutz.ssdb4j.spi.SSDBStreamCallback;
+
+/**
+ * FastPool中的一个连接, 自身的值即为连接状态, 借还只需一次CAS
+ *
+ */
+@SuppressWarnings("serial")
+public class PooledSSDBStream extends AtomicInteger implements SSDBStream {
+
+	static final int IDLE = 0;
+	static final int BUSY = 1;
+	static final int DEAD = 2;
+
+	protected final SSDBStream stream;
+	protected final int slot;
+	/** 底层连接出错后能否自行重连, 能的话出错后照常归还而不是销毁 */
+	protected final boolean reconnectable;
+	/** 最近一次归还的时间, 只在testWhileIdle时记录 */
+	protected volatile long idleSince = System.nanoTime();
+
+	PooledSSDBStream(SSDBStream stream, int slot) {
+		super(BUSY);
+		this.stream = stream;
+		this.slot = slot;
+		this.reconnectable = stream instanceof SocketSSDBStream || stream instanceof UnixSocketSSDBStream;
+	}
+
+	public Response req(Cmd cmd, byte[]... vals) {
+		return stream.req(cmd, vals);
+	}
+
+	public void callback(SSDBStreamCallback callback) {
+		stream.callback(callback);
+	}
+
+	/**
+	 * 关闭底层连接. 一般由连接池调用,使用方应归还连接而不是关闭它
+	 */
+	public void close() throws IOException {
+		stream.close();
+	}
+}
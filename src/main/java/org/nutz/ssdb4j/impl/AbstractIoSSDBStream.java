@@ -2,6 +2,7 @@ package org.nutz.ssdb4j.impl;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.nutz.ssdb4j.SSDBs;
 import org.nutz.ssdb4j.spi.Cmd;
@@ -10,21 +11,31 @@ import org.nutz.ssdb4j.spi.SSDBException;
 import org.nutz.ssdb4j.spi.SSDBStream;
 import org.nutz.ssdb4j.spi.SSDBStreamCallback;
 
+/**
+ * 阻塞IO的连接. 用ReentrantLock而不是synchronized保护连接, 在虚拟线程上阻塞读写时不会占住载体线程
+ */
 public abstract class AbstractIoSSDBStream implements SSDBStream {
 
 	protected InputStream in;
 
 	protected OutputStream out;
 
-	public synchronized Response req(Cmd cmd, byte[]... vals) {
-		beforeExec();
+	protected final ReentrantLock lock = new ReentrantLock();
+
+	public Response req(Cmd cmd, byte[]... vals) {
+		lock.lock();
 		try {
-			SSDBs.sendCmd(out, cmd, vals);
-			Response resp = SSDBs.readResp(in);
-			beforeReturn(resp);
-			return resp;
-		} catch (Throwable e) {
-			return whenError(e);
+			beforeExec();
+			try {
+				SSDBs.sendCmd(out, cmd, vals);
+				Response resp = SSDBs.readResp(in);
+				beforeReturn(resp);
+				return resp;
+			} catch (Throwable e) {
+				return whenError(e);
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 
@@ -39,11 +50,16 @@ public abstract class AbstractIoSSDBStream implements SSDBStream {
 	}
 	
 	public void callback(SSDBStreamCallback callback) {
-		beforeExec();
+		lock.lock();
 		try {
-			callback.invoke(in, out);
-		} catch (Throwable e) {
-			whenError(e);
+			beforeExec();
+			try {
+				callback.invoke(in, out);
+			} catch (Throwable e) {
+				whenError(e);
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 	
@@ -0,0 +1,624 @@
+package org.nutz.ssdb4j.impl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.nutz.ssdb4j.SSDBs;
+import org.nutz.ssdb4j.spi.AsyncSSDB;
+import org.nutz.ssdb4j.spi.AsyncSSDBStream;
+import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.ObjectConv;
+import org.nutz.ssdb4j.spi.Response;
+
+public class AsyncClient implements AsyncSSDB {
+
+	protected static final byte[] EMPTY_ARG = new byte[0];
+
+	/** 负责触发请求截止时间的共享定时器 */
+	protected static final ScheduledThreadPoolExecutor deadlines = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread thread = Executors.defaultThreadFactory().newThread(r);
+			thread.setName("ssdb4j-deadline");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+	static {
+		deadlines.setRemoveOnCancelPolicy(true);
+	}
+
+	protected AsyncSSDBStream stream;
+
+	protected ObjectConv conv;
+
+	/** 每个请求的截止时间,单位纳秒, 0表示不限制 */
+	protected long timeout;
+
+	public AsyncClient(AsyncSSDBStream stream) {
+		this.stream = stream;
+		this.conv = DefaultObjectConv.me;
+	}
+
+	protected byte[] bytes(Object obj) {
+		return conv.bytes(obj);
+	}
+
+	protected byte[][] bytess(Object... objs) {
+		return conv.bytess(objs);
+	}
+
+	protected CompletableFuture<Response> req(Cmd cmd, byte[] first, byte[][] lots) {
+		byte[][] vals = new byte[lots.length + 1][];
+		vals[0] = first;
+		for (int i = 0; i < lots.length; i++) {
+			vals[i + 1] = lots[i];
+		}
+		return req(cmd, vals);
+	}
+
+	public CompletableFuture<Response> req(Cmd cmd, byte[]... vals) {
+		final CompletableFuture<Response> future = stream.reqAsync(cmd, vals);
+		if (timeout > 0 && !future.isDone()) {
+			final String name = cmd.getName();
+			final ScheduledFuture<?> deadline = deadlines.schedule(new Runnable() {
+				public void run() {
+					future.completeExceptionally(new TimeoutException("timeout, cmd=" + name));
+				}
+			}, timeout, TimeUnit.NANOSECONDS);
+			future.whenComplete(new BiConsumer<Response, Throwable>() {
+				public void accept(Response resp, Throwable e) {
+					deadline.cancel(false);
+				}
+			});
+		}
+		return future;
+	}
+
+	public AsyncSSDB timeout(long timeout, TimeUnit timeUnit) {
+		if (timeout < 0 || timeUnit == null)
+			throw new IllegalArgumentException("timeout must bigger than 0, and timeUnit must not null");
+		AsyncClient client = new AsyncClient(stream);
+		client.conv = conv;
+		client.timeout = timeUnit.toNanos(timeout);
+		return client;
+	}
+
+	public void setObjectConv(ObjectConv conv) {
+		this.conv = conv;
+	}
+
+	public void changeObjectConv(ObjectConv conv) {
+		this.setObjectConv(conv);
+	}
+
+	// ----------------------------------------------------------------------------------
+
+	public CompletableFuture<Response> get(Object key) {
+		return req(Cmd.get, bytes(key));
+	}
+
+	public CompletableFuture<Response> set(Object key, Object val) {
+		return req(Cmd.set, bytes(key), bytes(val));
+	}
+
+	public CompletableFuture<Response> setx(Object key, Object val, int ttl) {
+		return req(Cmd.setx, bytes(key), bytes(val), SSDBs.num(ttl));
+	}
+
+	public CompletableFuture<Response> del(Object key) {
+		return req(Cmd.del, bytes(key));
+	}
+
+	public CompletableFuture<Response> incr(Object key, int val) {
+		return req(Cmd.incr, bytes(key), SSDBs.num(val));
+	}
+
+	public CompletableFuture<Response> exists(Object key) {
+		return req(Cmd.exists, bytes(key));
+	}
+
+	public CompletableFuture<Response> keys(Object start, Object end, int limit) {
+		return req(Cmd.keys, bytes(start), bytes(end), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> multi_set(Object... pairs) {
+		return req(Cmd.multi_set, bytess(pairs));
+	}
+
+	public CompletableFuture<Response> multi_get(Object... keys) {
+		return req(Cmd.multi_get, bytess(keys));
+	}
+
+	public CompletableFuture<Response> multi_del(Object... keys) {
+		return req(Cmd.multi_del, bytess(keys));
+	}
+
+	public CompletableFuture<Response> scan(Object start, Object end, int limit) {
+		return req(Cmd.scan, bytes(start), bytes(end), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> rscan(Object start, Object end, int limit) {
+		return req(Cmd.rscan, bytes(start), bytes(end), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> hset(Object key, Object hkey, Object hval) {
+		return req(Cmd.hset, bytes(key), bytes(hkey), bytes(hval));
+	}
+
+	public CompletableFuture<Response> hdel(Object key, Object hkey) {
+		return req(Cmd.hdel, bytes(key), bytes(hkey));
+	}
+
+	public CompletableFuture<Response> hget(Object key, Object hkey) {
+		return req(Cmd.hget, bytes(key), bytes(hkey));
+	}
+
+	public CompletableFuture<Response> hsize(Object key) {
+		return req(Cmd.hsize, bytes(key));
+	}
+
+	public CompletableFuture<Response> hlist(Object key, Object hkey, int limit) {
+		return req(Cmd.hlist, bytes(key), bytes(hkey), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> hincr(Object key, Object hkey, int val) {
+		return req(Cmd.hincr, bytes(key), bytes(hkey), SSDBs.num(val));
+	}
+
+	public CompletableFuture<Response> hscan(Object key, Object start, Object end, int limit) {
+		return req(Cmd.hscan, bytes(key), bytes(start), bytes(end), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> hrscan(Object key, Object start, Object end, int limit) {
+		return req(Cmd.hrscan, bytes(key), bytes(start), bytes(end), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> zset(Object key, Object zkey, long score) {
+		return req(Cmd.zset, bytes(key), bytes(zkey), SSDBs.num(score));
+	}
+
+	public CompletableFuture<Response> zget(Object key, Object zkey) {
+		return req(Cmd.zget, bytes(key), bytes(zkey));
+	}
+
+	public CompletableFuture<Response> zdel(Object key, Object zkey) {
+		return req(Cmd.zdel, bytes(key), bytes(zkey));
+	}
+
+	public CompletableFuture<Response> zincr(Object key, Object zkey, int val) {
+		return req(Cmd.zincr, bytes(key), bytes(zkey), SSDBs.num(val));
+	}
+
+	public CompletableFuture<Response> zsize(Object key) {
+		return req(Cmd.zsize, bytes(key));
+	}
+
+	public CompletableFuture<Response> zlist(Object zkey_start, Object zkey_end, int limit) {
+		return req(Cmd.zlist, bytes(zkey_start), bytes(zkey_end), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> zrank(Object key, Object zkey) {
+		return req(Cmd.zrank, bytes(key), bytes(zkey));
+	}
+
+	public CompletableFuture<Response> zrrank(Object key, Object zkey) {
+		return req(Cmd.zrrank, bytes(key), bytes(zkey));
+	}
+
+	public CompletableFuture<Response> zscan(Object key, Object zkey_start, Object score_start, Object score_end, int limit) {
+		return req(Cmd.zscan, bytes(key), bytes(zkey_start), bytes(score_start), bytes(score_end),
+				SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> zrscan(Object key, Object zkey_start, Object score_start, Object score_end, int limit) {
+		return req(Cmd.zrscan, bytes(key), bytes(zkey_start), bytes(score_start), bytes(score_end),
+				SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> qsize(Object key) {
+		return req(Cmd.qsize, bytes(key));
+	}
+
+	public CompletableFuture<Response> qfront(Object key) {
+		return req(Cmd.qfront, bytes(key));
+	}
+
+	public CompletableFuture<Response> qback(Object key) {
+		return req(Cmd.qback, bytes(key));
+	}
+
+	public CompletableFuture<Response> qpush(Object key, Object value) {
+		return req(Cmd.qpush, bytes(key), bytes(value));
+	}
+
+	public CompletableFuture<Response> qpop(Object key) {
+		return req(Cmd.qpop, bytes(key));
+	}
+
+	public CompletableFuture<Response> qlist(Object key_start, Object key_end, int limit) {
+		return req(Cmd.qlist, bytes(key_start), bytes(key_end), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> qclear(Object key) {
+		return req(Cmd.qclear, bytes(key));
+	}
+
+	public CompletableFuture<Response> hkeys(Object key, Object start, Object end, int limit) {
+		return req(Cmd.hkeys, bytes(key), bytes(start), bytes(end), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> hexists(Object key, Object hkey) {
+		return req(Cmd.hexists, bytes(key), bytes(hkey));
+	}
+
+	public CompletableFuture<Response> hclear(Object key) {
+		return req(Cmd.hclear, bytes(key));
+	}
+
+	public CompletableFuture<Response> multi_hget(Object key, Object... hkeys) {
+		return req(Cmd.multi_hget, bytes(key), bytess(hkeys));
+	}
+
+	public CompletableFuture<Response> multi_hset(Object key, Object... pairs) {
+		return req(Cmd.multi_hset, bytes(key), bytess(pairs));
+	}
+
+	public CompletableFuture<Response> multi_hdel(Object key, Object... hkeys) {
+		return req(Cmd.multi_hdel, bytes(key), bytess(hkeys));
+	}
+
+	public CompletableFuture<Response> zexists(Object key, Object zkey) {
+		return req(Cmd.zexists, bytes(key), bytes(zkey));
+	}
+
+	public CompletableFuture<Response> zclear(Object key) {
+		return req(Cmd.zclear, bytes(key));
+	}
+
+	public CompletableFuture<Response> zkeys(Object key, Object zkey_start, Object score_start, Object score_end, int limit) {
+		return req(Cmd.zkeys, bytes(key), bytes(zkey_start), bytes(score_start), bytes(score_end),
+				SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> zrange(Object key, int offset, int limit) {
+		return req(Cmd.zrange, bytes(key), SSDBs.num(offset), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> zrrange(Object key, int offset, int limit) {
+		return req(Cmd.zrrange, bytes(key), SSDBs.num(offset), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> multi_zset(Object key, Object... pairs) {
+		return req(Cmd.multi_zset, bytes(key), bytess(pairs));
+	}
+
+	public CompletableFuture<Response> multi_zget(Object key, Object... zkeys) {
+		return req(Cmd.multi_zget, bytes(key), bytess(zkeys));
+	}
+
+	public CompletableFuture<Response> multi_zdel(Object key, Object... zkeys) {
+		return req(Cmd.multi_zdel, bytes(key), bytess(zkeys));
+	}
+
+	public CompletableFuture<Response> flushdb(String type) {
+		CompletableFuture<Long> count;
+		if (type == null || type.length() == 0) {
+			count = flushdb_kv(0).thenCompose(new Function<Long, CompletionStage<Long>>() {
+				public CompletionStage<Long> apply(Long count) {
+					return flushdb_each(Cmd.hlist, Cmd.hclear, count);
+				}
+			}).thenCompose(new Function<Long, CompletionStage<Long>>() {
+				public CompletionStage<Long> apply(Long count) {
+					return flushdb_each(Cmd.zlist, Cmd.zclear, count);
+				}
+			}).thenCompose(new Function<Long, CompletionStage<Long>>() {
+				public CompletionStage<Long> apply(Long count) {
+					return flushdb_each(Cmd.qlist, Cmd.qclear, count);
+				}
+			});
+		} else if ("kv".equals(type)) {
+			count = flushdb_kv(0);
+		} else if ("hash".equals(type)) {
+			count = flushdb_each(Cmd.hlist, Cmd.hclear, 0);
+		} else if ("zset".equals(type)) {
+			count = flushdb_each(Cmd.zlist, Cmd.zclear, 0);
+		} else if ("list".equals(type)) {
+			count = flushdb_each(Cmd.qlist, Cmd.qclear, 0);
+		} else {
+			throw new IllegalArgumentException("not such flushdb mode=" + type);
+		}
+		return count.thenApply(new Function<Long, Response>() {
+			public Response apply(Long count) {
+				Response resp = new Response();
+				resp.stat = "ok";
+				return resp;
+			}
+		});
+	}
+
+	protected CompletableFuture<Long> flushdb_kv(final long count) {
+		return keys("", "", 1000).thenCompose(new Function<Response, CompletionStage<Long>>() {
+			public CompletionStage<Long> apply(Response resp) {
+				final List<String> keys = resp.check().listString();
+				if (keys.isEmpty())
+					return CompletableFuture.completedFuture(count);
+				return multi_del(keys.toArray()).thenCompose(new Function<Response, CompletionStage<Long>>() {
+					public CompletionStage<Long> apply(Response resp) {
+						return flushdb_kv(count + keys.size());
+					}
+				});
+			}
+		});
+	}
+
+	protected CompletableFuture<Long> flushdb_each(final Cmd list, final Cmd clear, final long count) {
+		return req(list, EMPTY_ARG, EMPTY_ARG, SSDBs.num(1000)).thenCompose(new Function<Response, CompletionStage<Long>>() {
+			public CompletionStage<Long> apply(Response resp) {
+				final List<String> keys = resp.check().listString();
+				if (keys.isEmpty())
+					return CompletableFuture.completedFuture(count);
+				CompletableFuture<?>[] clears = new CompletableFuture<?>[keys.size()];
+				for (int i = 0; i < clears.length; i++)
+					clears[i] = req(clear, bytes(keys.get(i)));
+				return CompletableFuture.allOf(clears).thenCompose(new Function<Void, CompletionStage<Long>>() {
+					public CompletionStage<Long> apply(Void v) {
+						return flushdb_each(list, clear, count + keys.size());
+					}
+				});
+			}
+		});
+	}
+
+	public CompletableFuture<Response> info() {
+		return req(Cmd.info);
+	}
+
+	public CompletableFuture<Response> setnx(Object key, Object val) {
+		return req(Cmd.setnx, bytes(key), bytes(val));
+	}
+
+	public CompletableFuture<Response> getset(Object key, Object val) {
+		return req(Cmd.getset, bytes(key), bytes(val));
+	}
+
+	public CompletableFuture<Response> qslice(Object key, int start, int end) {
+		return req(Cmd.qslice, bytes(key), SSDBs.num(start), SSDBs.num(end));
+	}
+
+	public CompletableFuture<Response> qget(Object key, int index) {
+		return req(Cmd.qget, bytes(key), SSDBs.num(index));
+	}
+
+	public CompletableFuture<Response> zcount(Object key, int start, int end) {
+		return req(Cmd.zcount, bytes(key), SSDBs.num(start), SSDBs.num(end));
+	}
+
+	public CompletableFuture<Response> zsum(Object key, int start, int end) {
+		return req(Cmd.zsum, bytes(key), SSDBs.num(start), SSDBs.num(end));
+	}
+
+	public CompletableFuture<Response> zavg(Object key, int start, int end) {
+		return req(Cmd.zavg, bytes(key), SSDBs.num(start), SSDBs.num(end));
+	}
+
+	public CompletableFuture<Response> ttl(Object key) {
+		return req(Cmd.ttl, bytes(key));
+	}
+
+	public CompletableFuture<Response> hgetall(Object key) {
+		return req(Cmd.hgetall, bytes(key));
+	}
+
+	public CompletableFuture<Response> zremrangebyrank(Object key, Object score_start, Object score_end) {
+		return req(Cmd.zremrangebyrank, bytes(key), bytes(score_start), bytes(score_end));
+	}
+
+	public CompletableFuture<Response> zremrangebyscore(Object key, Object score_start, Object score_end) {
+		return req(Cmd.zremrangebyscore, bytes(key), bytes(score_start), bytes(score_end));
+	}
+
+	public CompletableFuture<Response> multi_zexists(Object key, Object... zkeys) {
+		return req(Cmd.multi_zexists, bytes(key), bytess(zkeys));
+	}
+
+	public CompletableFuture<Response> multi_zsize(Object... keys) {
+		return req(Cmd.multi_zsize, bytess(keys));
+	}
+
+	public CompletableFuture<Response> qpush_back(Object key, Object value) {
+		return req(Cmd.qpush_back, bytes(key), bytes(value));
+	}
+
+	public CompletableFuture<Response> qpush_front(Object key, Object value) {
+		return req(Cmd.qpush_front, bytes(key), bytes(value));
+	}
+
+	public CompletableFuture<Response> qpop_back(Object key) {
+		return req(Cmd.qpop_back, bytes(key));
+	}
+
+	public CompletableFuture<Response> qpop_front(Object key) {
+		return req(Cmd.qpop_front, bytes(key));
+	}
+
+	public CompletableFuture<Response> qrange(Object key, int begin, int limit) {
+		return req(Cmd.qrange, bytes(key), SSDBs.num(begin), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> expire(Object key, int ttl) {
+		return req(Cmd.expire, bytes(key), SSDBs.num(ttl));
+	}
+
+	public CompletableFuture<Response> sync140() {
+		return req(Cmd.sync140);
+	}
+
+	public CompletableFuture<Response> getbit(Object key, int offset) {
+		return req(Cmd.getbit, bytes(key), SSDBs.num(offset));
+	}
+
+	public CompletableFuture<Response> setbit(Object key, int offset, byte on) {
+		return req(Cmd.setbit, bytes(key), SSDBs.num(offset),
+				SSDBs.num(on == 1 ? 1 : 0));
+	}
+
+	public CompletableFuture<Response> countbit(Object key, int start, int size) {
+		return req(Cmd.countbit, bytes(key), SSDBs.num(start), SSDBs.num(size));
+	}
+
+	public CompletableFuture<Response> substr(Object key, int start, int size) {
+		if (size < 0)
+			size = 2000000000;
+		return req(Cmd.substr, bytes(key), SSDBs.num(start), SSDBs.num(size));
+	}
+
+	public CompletableFuture<Response> strlen(Object key) {
+		return req(Cmd.strlen, bytes(key));
+	}
+
+	public CompletableFuture<Response> hrlist(Object key, Object hkey, int limit) {
+		return req(Cmd.hrlist, bytes(key), bytes(hkey), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> zrlist(Object zkey_start, Object zkey_end, int limit) {
+		return req(Cmd.zrlist, bytes(zkey_start), bytes(zkey_end), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> qrlist(Object key_start, Object key_end, int limit) {
+		return req(Cmd.qrlist, bytes(key_start), bytes(key_end), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> auth(String passwd) {
+		return req(Cmd.auth, bytes(passwd));
+	}
+
+	public CompletableFuture<Response> qtrim_back(Object key, int size) {
+		return req(Cmd.qtrim_back, bytes(key), SSDBs.num(size));
+	}
+
+	public CompletableFuture<Response> qtrim_front(Object key, int size) {
+		return req(Cmd.qtrim_front, bytes(key), SSDBs.num(size));
+	}
+
+	public CompletableFuture<Response> dbsize() {
+		return req(Cmd.dbsize);
+	}
+
+	public CompletableFuture<Response> qset(Object key, int index, Object value) {
+		return req(Cmd.qset, bytes(key), SSDBs.num(index), bytes(value));
+	}
+
+	public CompletableFuture<Response> get_key_range() {
+		return get_kv_range();
+	}
+
+	public CompletableFuture<Response> qpop_back(Object key, int limit) {
+		return req(Cmd.qpop_back, bytes(key), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> qpop_front(Object key, int limit) {
+		return req(Cmd.qpop_front, bytes(key), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> rkeys(Object start, Object end, int limit) {
+		return req(Cmd.rkeys, bytes(start), bytes(end), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> decr(Object key, int val) {
+		return req(Cmd.decr, bytes(key), SSDBs.num(val));
+	}
+
+	public CompletableFuture<Response> multi_exists(Object... keys) {
+		return req(Cmd.multi_exists, bytess(keys));
+	}
+
+	public CompletableFuture<Response> hdecr(Object key, Object hkey, int val) {
+		return req(Cmd.hdecr, bytes(key), bytes(hkey), SSDBs.num(val));
+	}
+
+	public CompletableFuture<Response> hvals(Object key, Object start, Object end, int limit) {
+		return req(Cmd.hvals, bytes(key), bytes(start), bytes(end), SSDBs.num(limit));
+	}
+
+	public CompletableFuture<Response> multi_hexists(Object... keys) {
+		return req(Cmd.multi_hexists, bytess(keys));
+	}
+
+	public CompletableFuture<Response> multi_hsize(Object... keys) {
+		return req(Cmd.multi_hsize, bytess(keys));
+	}
+
+	public CompletableFuture<Response> zdecr(Object key, Object zkey, int val) {
+		return req(Cmd.zdecr, bytes(key), bytes(zkey), SSDBs.num(val));
+	}
+
+	public CompletableFuture<Response> qfix(Object key) {
+		return req(Cmd.qfix, bytes(key));
+	}
+
+	public CompletableFuture<Response> ping() {
+		return req(Cmd.ping);
+	}
+
+	public CompletableFuture<Response> eval(Object lua, Object... args) {
+		return req(Cmd.eval, bytes(lua), bytess(args));
+	}
+
+	public CompletableFuture<Response> evalsha(Object sha1, Object... args) {
+		return req(Cmd.evalsha, bytes(sha1), bytess(args));
+	}
+
+	public CompletableFuture<Response> key_range() {
+		return req(Cmd.key_range);
+	}
+
+	public CompletableFuture<Response> compact() {
+		return req(Cmd.compact);
+	}
+
+	public CompletableFuture<Response> getrange(Object key, int start, int size) {
+		return req(Cmd.getrange, bytes(key), SSDBs.num(start), SSDBs.num(size));
+	}
+
+	public CompletableFuture<Response> redis_bitcount(Object key, int start, int size) {
+		return req(Cmd.redis_bitcount, bytes(key), SSDBs.num(start), SSDBs.num(size));
+	}
+
+	public CompletableFuture<Response> get_kv_range() {
+		return req(Cmd.get_kv_range);
+	}
+
+	public CompletableFuture<Response> set_kv_range(Object start, Object end) {
+		return req(Cmd.set_kv_range, bytes(start), bytes(end));
+	}
+
+	public CompletableFuture<Response> ignore_key_range() {
+		return req(Cmd.ignore_key_range);
+	}
+
+	public CompletableFuture<Response> version() {
+		return req(Cmd.version);
+	}
+
+	public CompletableFuture<Response> dump() {
+		return req(Cmd.dump);
+	}
+
+	public CompletableFuture<Response> clear_binlog() {
+		return req(Cmd.clear_binlog);
+	}
+
+	public void close() throws IOException {
+		stream.close();
+	}
+}
@@ -1,14 +1,21 @@
 package org.nutz.ssdb4j.impl;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+import org.nutz.ssdb4j.SSDBs;
 import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.KeyValueCallback;
 import org.nutz.ssdb4j.spi.Response;
 import org.nutz.ssdb4j.spi.SSDB;
 import org.nutz.ssdb4j.spi.SSDBException;
 import org.nutz.ssdb4j.spi.SSDBStream;
+import org.nutz.ssdb4j.spi.SSDBStreamCallback;
 
 public class BatchClient extends SimpleClient {
 
@@ -24,6 +31,8 @@ public class BatchClient extends SimpleClient {
     protected int timeout;
     
     protected TimeUnit timeUnit;
+    
+    protected ReentrantLock lock = new ReentrantLock();
 
     public BatchClient(SSDBStream stream, int timeout, TimeUnit timeUnit) {
         super(stream);
@@ -42,22 +51,67 @@ public class BatchClient extends SimpleClient {
         return OK;
     }
 
-    public synchronized List<Response> exec() {
-        if (reqs == null)
-            throw new SSDBException("this BatchClient is invaild!");
-        for (_Req req : reqs) {
-            this.resps.add(stream.req(req.cmd, req.vals));
+    /**
+     * 在同一个连接上一次性写出全部命令并只flush一次,然后按顺序读取全部响应.
+     * 超时时间约束的是整个批次,而非单个命令, 但只在相邻两个响应之间检查:
+     * 正在阻塞读取的单个响应只受连接本身的读超时约束, 因此批次的实际耗时最多可超出一个读超时.
+     */
+    public List<Response> exec() {
+        lock.lock();
+        try {
+            if (reqs == null)
+                throw new SSDBException("this BatchClient is invaild!");
+            if (!reqs.isEmpty())
+                stream.callback(new _Pipeline(reqs, resps, timeUnit.toNanos(timeout)));
+            List<Response> resps = this.resps;
+            this.resps = null;
+            this.reqs = null;
+            return resps;
+        } finally {
+            lock.unlock();
         }
-        List<Response> resps = this.resps;
-        this.resps = null;
-        this.reqs = null;
-        return resps;
     }
     
+    protected void stream(Cmd cmd, boolean scores, KeyValueCallback callback, byte[]... vals) {
+        throw new SSDBException("streaming read is not supported in batch mode");
+    }
+
     public SSDB batch() {
         throw new SSDBException("aready in batch mode, not support for batch again");
     }
 
+    static class _Pipeline implements SSDBStreamCallback {
+        protected List<_Req> reqs;
+        protected List<Response> resps;
+        protected long timeout;
+
+        public _Pipeline(List<_Req> reqs, List<Response> resps, long timeout) {
+            this.reqs = reqs;
+            this.resps = resps;
+            this.timeout = timeout;
+        }
+
+        /**
+         * 回调只拿到输入输出流, 无法调整底层连接的读超时, 截止时间在每读取一个响应前检查
+         */
+        public void invoke(InputStream in, OutputStream out) {
+            long deadline = System.nanoTime() + timeout;
+            try {
+                for (_Req req : reqs) {
+                    SSDBs.writeCmd(out, req.cmd, req.vals);
+                }
+                out.flush();
+                for (int i = 0; i < reqs.size(); i++) {
+                    if (timeout > 0 && System.nanoTime() - deadline > 0)
+                        throw new SSDBException("batch timeout, " + i + "/" + reqs.size() + " responses received");
+                    resps.add(SSDBs.readResp(in));
+                }
+            } catch (IOException e) {
+                throw new SSDBException(e);
+            }
+        }
+    }
+
     static class _Req {
         public Cmd cmd;
         public byte[][] vals;
@@ -0,0 +1,72 @@
+package org.nutz.ssdb4j.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.nutz.ssdb4j.SSDBs;
+import org.nutz.ssdb4j.spi.SSDBException;
+
+/**
+ * 边读边返回响应中数据块的迭代器,任一时刻只持有一个数据块
+ *
+ */
+public class BlockIterator implements Iterator<byte[]> {
+
+	protected InputStream in;
+	protected byte[] next;
+	protected boolean end;
+
+	/**
+	 * @param in 已读取过状态块的输入流
+	 */
+	public BlockIterator(InputStream in) {
+		this.in = in;
+	}
+
+	public boolean hasNext() {
+		if (next == null && !end) {
+			try {
+				next = SSDBs.readBlock(in);
+			} catch (IOException e) {
+				throw new SSDBException(e);
+			}
+			end = next == null;
+		}
+		return !end;
+	}
+
+	public byte[] next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		byte[] data = next;
+		next = null;
+		return data;
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * 读完并丢弃剩余的数据块,使连接可以继续使用
+	 */
+	public void drain() throws IOException {
+		next = null;
+		if (end)
+			return;
+		if (in instanceof SSDBInputStream) {
+			SSDBInputStream sin = (SSDBInputStream) in;
+			int len;
+			while ((len = sin.readLength()) >= 0) {
+				sin.skipFully(len);
+				sin.readLF();
+			}
+		} else {
+			while (SSDBs.readBlock(in) != null) {
+			}
+		}
+		end = true;
+	}
+}
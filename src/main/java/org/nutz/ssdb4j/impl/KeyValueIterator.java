@@ -0,0 +1,47 @@
+package org.nutz.ssdb4j.impl;
+
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+import org.nutz.ssdb4j.spi.KeyValue;
+import org.nutz.ssdb4j.spi.SSDBException;
+
+/**
+ * 把成对的数据块转为KeyValue的迭代器
+ *
+ */
+public class KeyValueIterator implements Iterator<KeyValue> {
+
+	protected Iterator<byte[]> blocks;
+	protected Charset charset;
+	protected boolean scores;
+
+	/**
+	 * @param blocks 数据块迭代器
+	 * @param charset 字符集
+	 * @param scores 值是否为zset的分数
+	 */
+	public KeyValueIterator(Iterator<byte[]> blocks, Charset charset, boolean scores) {
+		this.blocks = blocks;
+		this.charset = charset;
+		this.scores = scores;
+	}
+
+	public boolean hasNext() {
+		return blocks.hasNext();
+	}
+
+	public KeyValue next() {
+		String key = new String(blocks.next(), charset);
+		if (!blocks.hasNext())
+			throw new SSDBException("not key-value pairs");
+		String value = new String(blocks.next(), charset);
+		if (scores)
+			return new KeyValue(key, Long.parseLong(value));
+		return new KeyValue(key, value);
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+}
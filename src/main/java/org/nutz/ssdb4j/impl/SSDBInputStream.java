@@ -0,0 +1,169 @@
+package org.nutz.ssdb4j.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.nutz.ssdb4j.spi.SSDBException;
+
+/**
+ * 按ssdb通信协议读取数据块的缓冲输入流,每个连接一个实例.
+ * <p></p>长度行直接在内部缓冲区中扫描解析,数据块尽量用一次System.arraycopy复制,
+ * 大数据块绕过缓冲区直接读入目标数组.
+ * <p></p>与BufferedInputStream不同,本类不是线程安全的,由连接的使用方负责同步
+ *
+ */
+public class SSDBInputStream extends InputStream {
+
+	protected InputStream in;
+	protected byte[] buf;
+	protected int pos;
+	protected int limit;
+
+	public SSDBInputStream(InputStream in) {
+		this(in, 8192);
+	}
+
+	public SSDBInputStream(InputStream in, int size) {
+		if (size < 1)
+			throw new IllegalArgumentException("buffer size must bigger than 0");
+		this.in = in;
+		this.buf = new byte[size];
+	}
+
+	/**
+	 * 读取一个块
+	 * @return 如果首字节为回车(\n),则返回null,否则返回Block的data部分
+	 */
+	public byte[] readBlock() throws IOException {
+		int len = readLength();
+		if (len < 0)
+			return null;
+		byte[] data = new byte[len];
+		readFully(data, 0, len);
+		readLF();
+		return data;
+	}
+
+	/**
+	 * 读取块的长度行
+	 * @return 块长度,如果首字节为回车(\n)则返回-1
+	 */
+	public int readLength() throws IOException {
+		int len = 0;
+		boolean digits = false;
+		while (true) {
+			if (pos == limit && !fill())
+				throw new SSDBException("protocol error. unexpect stream end!");
+			byte[] buf = this.buf;
+			int p = pos;
+			int end = limit;
+			while (p < end) {
+				byte d = buf[p++];
+				if (d >= '0' && d <= '9') {
+					len = len * 10 + (d - '0');
+					digits = true;
+				} else if (d == '\n') {
+					pos = p;
+					return digits ? len : -1;
+				} else {
+					pos = p;
+					throw new SSDBException("protocol error. unexpect byte=" + d);
+				}
+			}
+			pos = p;
+		}
+	}
+
+	/**
+	 * 读取块结尾的回车
+	 */
+	public void readLF() throws IOException {
+		if (pos == limit && !fill())
+			throw new SSDBException("protocol error. unexpect stream end!");
+		byte d = buf[pos++];
+		if (d != '\n')
+			throw new SSDBException("protocol error. unexpect byte=" + d);
+	}
+
+	public void readFully(byte[] b, int off, int len) throws IOException {
+		int n = Math.min(limit - pos, len);
+		System.arraycopy(buf, pos, b, off, n);
+		pos += n;
+		off += n;
+		len -= n;
+		if (len == 0)
+			return;
+		// 缓冲区已空, 大块直接读入目标数组, 小块先填充缓冲区
+		if (len >= buf.length) {
+			while (len > 0) {
+				int r = in.read(b, off, len);
+				if (r == -1)
+					throw new SSDBException("protocol error. unexpect stream end!");
+				off += r;
+				len -= r;
+			}
+			return;
+		}
+		while (len > 0) {
+			if (!fill())
+				throw new SSDBException("protocol error. unexpect stream end!");
+			n = Math.min(limit - pos, len);
+			System.arraycopy(buf, pos, b, off, n);
+			pos += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * 跳过n个字节
+	 */
+	public void skipFully(long n) throws IOException {
+		while (n > 0) {
+			if (pos == limit && !fill())
+				throw new SSDBException("protocol error. unexpect stream end!");
+			int k = (int) Math.min(limit - pos, n);
+			pos += k;
+			n -= k;
+		}
+	}
+
+	protected boolean fill() throws IOException {
+		pos = 0;
+		limit = 0;
+		int r = in.read(buf, 0, buf.length);
+		if (r <= 0)
+			return false;
+		limit = r;
+		return true;
+	}
+
+	public int read() throws IOException {
+		if (pos == limit && !fill())
+			return -1;
+		return buf[pos++] & 0xff;
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0)
+			return 0;
+		if (pos == limit) {
+			if (len >= buf.length)
+				return in.read(b, off, len);
+			if (!fill())
+				return -1;
+		}
+		int n = Math.min(limit - pos, len);
+		System.arraycopy(buf, pos, b, off, n);
+		pos += n;
+		return n;
+	}
+
+	public int available() throws IOException {
+		return limit - pos + in.available();
+	}
+
+	public void close() throws IOException {
+		in.close();
+	}
+}
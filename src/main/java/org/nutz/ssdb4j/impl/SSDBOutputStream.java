@@ -0,0 +1,96 @@
+package org.nutz.ssdb4j.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.nutz.ssdb4j.SSDBs;
+import org.nutz.ssdb4j.spi.Cmd;
+
+/**
+ * 按ssdb通信协议写出命令的缓冲输出流,每个连接一个实例.
+ * <p></p>块长度直接以十进制写入内部缓冲区,命令头使用Cmd中预先编码的字节,写命令的过程不产生临时对象.
+ * <p></p>与BufferedOutputStream不同,本类不是线程安全的,由连接的使用方负责同步
+ *
+ */
+public class SSDBOutputStream extends OutputStream {
+
+	protected OutputStream out;
+	protected byte[] buf;
+	protected int count;
+
+	public SSDBOutputStream(OutputStream out) {
+		this(out, 8192);
+	}
+
+	public SSDBOutputStream(OutputStream out, int size) {
+		if (size < 32)
+			throw new IllegalArgumentException("buffer size must not less than 32");
+		this.out = out;
+		this.buf = new byte[size];
+	}
+
+	public void writeCmd(Cmd cmd, byte[]... vals) throws IOException {
+		write(cmd.header());
+		for (byte[] val : vals)
+			writeBlock(val);
+		write('\n');
+	}
+
+	public void writeBlock(byte[] data) throws IOException {
+		if (data == null)
+			data = SSDBs.EMPTY_ARG;
+		if (buf.length - count < 12)
+			flushBuffer();
+		writeDigits(data.length);
+		buf[count++] = '\n';
+		write(data, 0, data.length);
+		write('\n');
+	}
+
+	protected void writeDigits(int n) {
+		int end = count + SSDBs.digits(n);
+		for (int i = end - 1; i >= count; i--) {
+			buf[i] = (byte) ('0' + n % 10);
+			n /= 10;
+		}
+		count = end;
+	}
+
+	public void write(int b) throws IOException {
+		if (count == buf.length)
+			flushBuffer();
+		buf[count++] = (byte) b;
+	}
+
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (len > buf.length - count) {
+			flushBuffer();
+			if (len >= buf.length) {
+				out.write(b, off, len);
+				return;
+			}
+		}
+		System.arraycopy(b, off, buf, count, len);
+		count += len;
+	}
+
+	protected void flushBuffer() throws IOException {
+		if (count > 0) {
+			out.write(buf, 0, count);
+			count = 0;
+		}
+	}
+
+	public void flush() throws IOException {
+		flushBuffer();
+		out.flush();
+	}
+
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -1,11 +1,16 @@
 package org.nutz.ssdb4j.impl;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import org.nutz.ssdb4j.SSDBs;
 import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.KeyValueCallback;
 import org.nutz.ssdb4j.spi.ObjectConv;
+import org.nutz.ssdb4j.spi.ReadOnlyStreamCallback;
 import org.nutz.ssdb4j.spi.Response;
 import org.nutz.ssdb4j.spi.SSDB;
 import org.nutz.ssdb4j.spi.SSDBException;
@@ -83,7 +88,7 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response setx(Object key, Object val, int ttl) {
-		return req(Cmd.setx, bytes(key), bytes(val), Integer.toString(ttl).getBytes());
+		return req(Cmd.setx, bytes(key), bytes(val), SSDBs.num(ttl));
 	}
 
 	public Response del(Object key) {
@@ -91,7 +96,7 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response incr(Object key, int val) {
-		return req(Cmd.incr, bytes(key), Integer.toString(val).getBytes());
+		return req(Cmd.incr, bytes(key), SSDBs.num(val));
 	}
 
 	public Response exists(Object key) {
@@ -99,7 +104,7 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response keys(Object start, Object end, int limit) {
-		return req(Cmd.keys, bytes(start), bytes(end), Integer.toString(limit).getBytes());
+		return req(Cmd.keys, bytes(start), bytes(end), SSDBs.num(limit));
 	}
 
 	public Response multi_set(Object... pairs) {
@@ -115,11 +120,11 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response scan(Object start, Object end, int limit) {
-		return req(Cmd.scan, bytes(start), bytes(end), Integer.toString(limit).getBytes());
+		return req(Cmd.scan, bytes(start), bytes(end), SSDBs.num(limit));
 	}
 
 	public Response rscan(Object start, Object end, int limit) {
-		return req(Cmd.rscan, bytes(start), bytes(end), Integer.toString(limit).getBytes());
+		return req(Cmd.rscan, bytes(start), bytes(end), SSDBs.num(limit));
 	}
 
 	public Response hset(Object key, Object hkey, Object hval) {
@@ -139,23 +144,23 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response hlist(Object key, Object hkey, int limit) {
-		return req(Cmd.hlist, bytes(key), bytes(hkey), Integer.toString(limit).getBytes());
+		return req(Cmd.hlist, bytes(key), bytes(hkey), SSDBs.num(limit));
 	}
 
 	public Response hincr(Object key, Object hkey, int val) {
-		return req(Cmd.hincr, bytes(key), bytes(hkey), Integer.toString(val).getBytes());
+		return req(Cmd.hincr, bytes(key), bytes(hkey), SSDBs.num(val));
 	}
 
 	public Response hscan(Object key, Object start, Object end, int limit) {
-		return req(Cmd.hscan, bytes(key), bytes(start), bytes(end), Integer.toString(limit).getBytes());
+		return req(Cmd.hscan, bytes(key), bytes(start), bytes(end), SSDBs.num(limit));
 	}
 
 	public Response hrscan(Object key, Object start, Object end, int limit) {
-		return req(Cmd.hrscan, bytes(key), bytes(start), bytes(end), Integer.toString(limit).getBytes());
+		return req(Cmd.hrscan, bytes(key), bytes(start), bytes(end), SSDBs.num(limit));
 	}
 
 	public Response zset(Object key, Object zkey, long score) {
-		return req(Cmd.zset, bytes(key), bytes(zkey), Long.toString(score).getBytes());
+		return req(Cmd.zset, bytes(key), bytes(zkey), SSDBs.num(score));
 	}
 
 	public Response zget(Object key, Object zkey) {
@@ -167,7 +172,7 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response zincr(Object key, Object zkey, int val) {
-		return req(Cmd.zincr, bytes(key), bytes(zkey), Integer.toString(val).getBytes());
+		return req(Cmd.zincr, bytes(key), bytes(zkey), SSDBs.num(val));
 	}
 
 	public Response zsize(Object key) {
@@ -175,7 +180,7 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response zlist(Object zkey_start, Object zkey_end, int limit) {
-		return req(Cmd.zlist, bytes(zkey_start), bytes(zkey_end), Integer.toString(limit).getBytes());
+		return req(Cmd.zlist, bytes(zkey_start), bytes(zkey_end), SSDBs.num(limit));
 	}
 
 	public Response zrank(Object key, Object zkey) {
@@ -188,12 +193,12 @@ public class SimpleClient implements SSDB {
 
 	public Response zscan(Object key, Object zkey_start, Object score_start, Object score_end, int limit) {
 		return req(Cmd.zscan, bytes(key), bytes(zkey_start), bytes(score_start), bytes(score_end),
-				Integer.toString(limit).getBytes());
+				SSDBs.num(limit));
 	}
 
 	public Response zrscan(Object key, Object zkey_start, Object score_start, Object score_end, int limit) {
 		return req(Cmd.zrscan, bytes(key), bytes(zkey_start), bytes(score_start), bytes(score_end),
-				Integer.toString(limit).getBytes());
+				SSDBs.num(limit));
 	}
 
 	public Response qsize(Object key) {
@@ -217,7 +222,7 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response qlist(Object key_start, Object key_end, int limit) {
-		return req(Cmd.qlist, bytes(key_start), bytes(key_end), Integer.toString(limit).getBytes());
+		return req(Cmd.qlist, bytes(key_start), bytes(key_end), SSDBs.num(limit));
 	}
 
 	public Response qclear(Object key) {
@@ -225,7 +230,7 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response hkeys(Object key, Object start, Object end, int limit) {
-		return req(Cmd.hkeys, bytes(key), bytes(start), bytes(end), Integer.toString(limit).getBytes());
+		return req(Cmd.hkeys, bytes(key), bytes(start), bytes(end), SSDBs.num(limit));
 	}
 
 	public Response hexists(Object key, Object hkey) {
@@ -258,15 +263,15 @@ public class SimpleClient implements SSDB {
 
 	public Response zkeys(Object key, Object zkey_start, Object score_start, Object score_end, int limit) {
 		return req(Cmd.zkeys, bytes(key), bytes(zkey_start), bytes(score_start), bytes(score_end),
-				Integer.toString(limit).getBytes());
+				SSDBs.num(limit));
 	}
 
 	public Response zrange(Object key, int offset, int limit) {
-		return req(Cmd.zrange, bytes(key), Integer.toString(offset).getBytes(), Integer.toString(limit).getBytes());
+		return req(Cmd.zrange, bytes(key), SSDBs.num(offset), SSDBs.num(limit));
 	}
 
 	public Response zrrange(Object key, int offset, int limit) {
-		return req(Cmd.zrrange, bytes(key), Integer.toString(offset).getBytes(), Integer.toString(limit).getBytes());
+		return req(Cmd.zrrange, bytes(key), SSDBs.num(offset), SSDBs.num(limit));
 	}
 
 	public Response multi_zset(Object key, Object... pairs) {
@@ -353,6 +358,71 @@ public class SimpleClient implements SSDB {
 		}
 	}
 
+	// ------------------------------------------
+
+	public void scan(Object start, Object end, int limit, KeyValueCallback callback) {
+		stream(Cmd.scan, false, callback, bytes(start), bytes(end), SSDBs.num(limit));
+	}
+
+	public void rscan(Object start, Object end, int limit, KeyValueCallback callback) {
+		stream(Cmd.rscan, false, callback, bytes(start), bytes(end), SSDBs.num(limit));
+	}
+
+	public void hscan(Object key, Object start, Object end, int limit, KeyValueCallback callback) {
+		stream(Cmd.hscan, false, callback, bytes(key), bytes(start), bytes(end), SSDBs.num(limit));
+	}
+
+	public void hgetall(Object key, KeyValueCallback callback) {
+		stream(Cmd.hgetall, false, callback, bytes(key));
+	}
+
+	public void zscan(Object key, Object zkey_start, Object score_start, Object score_end, int limit,
+			KeyValueCallback callback) {
+		stream(Cmd.zscan, true, callback, bytes(key), bytes(zkey_start), bytes(score_start), bytes(score_end),
+				SSDBs.num(limit));
+	}
+
+	/**
+	 * 在一个独占的连接上发送命令,并在读取响应的同时把键值对交给回调
+	 * @param cmd 命令
+	 * @param scores 值是否为zset的分数
+	 * @param callback 回调
+	 * @param vals 命令参数
+	 */
+	protected void stream(final Cmd cmd, final boolean scores, final KeyValueCallback callback, final byte[]... vals) {
+		final RuntimeException[] error = new RuntimeException[1];
+		stream.callback(new ReadOnlyStreamCallback() {
+			public void invoke(InputStream in, OutputStream out) {
+				try {
+					SSDBs.sendCmd(out, cmd, vals);
+					byte[] stat = SSDBs.readBlock(in);
+					if (stat == null)
+						throw new SSDBException("protocol error. unexpect \\n");
+					BlockIterator blocks = new BlockIterator(in);
+					if (!"ok".equals(SSDBs.status(stat, 0, stat.length))) {
+						Response resp = new Response();
+						resp.stat = new String(stat);
+						while (blocks.hasNext())
+							resp.datas.add(blocks.next());
+						error[0] = new SSDBException("msg=" + resp.stat + ", values=" + resp.listString());
+						return;
+					}
+					try {
+						callback.invoke(new KeyValueIterator(blocks, SSDBs.DEFAULT_CHARSET, scores));
+					} catch (RuntimeException e) {
+						// 回调出错时仍然读完整个响应,连接可以继续使用
+						error[0] = e;
+					}
+					blocks.drain();
+				} catch (IOException e) {
+					throw new SSDBException(e);
+				}
+			}
+		});
+		if (error[0] != null)
+			throw error[0];
+	}
+
 	public Response info() {
 		return req(Cmd.info);
 	}
@@ -368,23 +438,23 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response qslice(Object key, int start, int end) {
-		return req(Cmd.qslice, bytes(key), Integer.toString(start).getBytes(), Integer.toString(end).getBytes());
+		return req(Cmd.qslice, bytes(key), SSDBs.num(start), SSDBs.num(end));
 	}
 
 	public Response qget(Object key, int index) {
-		return req(Cmd.qget, bytes(key), Integer.toString(index).getBytes());
+		return req(Cmd.qget, bytes(key), SSDBs.num(index));
 	}
 
 	public Response zcount(Object key, int start, int end) {
-		return req(Cmd.zcount, bytes(key), Integer.toString(start).getBytes(), Integer.toString(end).getBytes());
+		return req(Cmd.zcount, bytes(key), SSDBs.num(start), SSDBs.num(end));
 	}
 
 	public Response zsum(Object key, int start, int end) {
-		return req(Cmd.zsum, bytes(key), Integer.toString(start).getBytes(), Integer.toString(end).getBytes());
+		return req(Cmd.zsum, bytes(key), SSDBs.num(start), SSDBs.num(end));
 	}
 
 	public Response zavg(Object key, int start, int end) {
-		return req(Cmd.zavg, bytes(key), Integer.toString(start).getBytes(), Integer.toString(end).getBytes());
+		return req(Cmd.zavg, bytes(key), SSDBs.num(start), SSDBs.num(end));
 	}
 
 	public Response ttl(Object key) {
@@ -404,11 +474,11 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response multi_zexists(Object key, Object... zkeys) {
-		return req(Cmd.zexists, bytes(key), bytess(zkeys));
+		return req(Cmd.multi_zexists, bytes(key), bytess(zkeys));
 	}
 
 	public Response multi_zsize(Object... keys) {
-		return req(Cmd.zsize, bytess(keys));
+		return req(Cmd.multi_zsize, bytess(keys));
 	}
 
 	public Response qpush_back(Object key, Object value) {
@@ -428,11 +498,11 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response qrange(Object key, int begin, int limit) {
-		return req(Cmd.qrange, bytes(key), Integer.toString(begin).getBytes(), Integer.toString(limit).getBytes());
+		return req(Cmd.qrange, bytes(key), SSDBs.num(begin), SSDBs.num(limit));
 	}
 
 	public Response expire(Object key, int ttl) {
-		return req(Cmd.expire, bytes(key), Integer.toString(ttl).getBytes());
+		return req(Cmd.expire, bytes(key), SSDBs.num(ttl));
 	}
 
 	public Response sync140() {
@@ -444,22 +514,22 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response getbit(Object key, int offset) {
-		return req(Cmd.getbit, bytes(key), Integer.toString(offset).getBytes());
+		return req(Cmd.getbit, bytes(key), SSDBs.num(offset));
 	}
 
 	public Response setbit(Object key, int offset, byte on) {
-		return req(Cmd.setbit, bytes(key), Integer.toString(offset).getBytes(),
-				on == 1 ? "1".getBytes() : "0".getBytes());
+		return req(Cmd.setbit, bytes(key), SSDBs.num(offset),
+				SSDBs.num(on == 1 ? 1 : 0));
 	}
 
 	public Response countbit(Object key, int start, int size) {
-		return req(Cmd.countbit, bytes(key), Integer.toString(start).getBytes(), Integer.toString(size).getBytes());
+		return req(Cmd.countbit, bytes(key), SSDBs.num(start), SSDBs.num(size));
 	}
 
 	public Response substr(Object key, int start, int size) {
 		if (size < 0)
 			size = 2000000000;
-		return req(Cmd.strlen, bytes(key), Integer.toString(start).getBytes(), Integer.toString(size).getBytes());
+		return req(Cmd.strlen, bytes(key), SSDBs.num(start), SSDBs.num(size));
 	}
 
 	public Response strlen(Object key) {
@@ -467,15 +537,15 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response hrlist(Object key, Object hkey, int limit) {
-		return req(Cmd.hrlist, bytes(key), bytes(hkey), Integer.toString(limit).getBytes());
+		return req(Cmd.hrlist, bytes(key), bytes(hkey), SSDBs.num(limit));
 	}
 
 	public Response zrlist(Object zkey_start, Object zkey_end, int limit) {
-		return req(Cmd.zrlist, bytes(zkey_start), bytes(zkey_end), Integer.toString(limit).getBytes());
+		return req(Cmd.zrlist, bytes(zkey_start), bytes(zkey_end), SSDBs.num(limit));
 	}
 
 	public Response qrlist(Object key_start, Object key_end, int limit) {
-		return req(Cmd.qrlist, bytes(key_start), bytes(key_end), Integer.toString(limit).getBytes());
+		return req(Cmd.qrlist, bytes(key_start), bytes(key_end), SSDBs.num(limit));
 	}
 
 	public Response auth(String passwd) {
@@ -483,11 +553,11 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response qtrim_back(Object key, int size) {
-		return req(Cmd.qtrim_back, bytes(key), Integer.toString(size).getBytes());
+		return req(Cmd.qtrim_back, bytes(key), SSDBs.num(size));
 	}
 
 	public Response qtrim_front(Object key, int size) {
-		return req(Cmd.qtrim_front, bytes(key), Integer.toString(size).getBytes());
+		return req(Cmd.qtrim_front, bytes(key), SSDBs.num(size));
 	}
 
 	// -----------------------------------
@@ -496,7 +566,7 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response qset(Object key, int index, Object value) {
-		return req(Cmd.qset, bytes(key), Integer.toString(index).getBytes(), bytes(value));
+		return req(Cmd.qset, bytes(key), SSDBs.num(index), bytes(value));
 	}
 
 	public Response get_key_range() {
@@ -504,17 +574,17 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response qpop_back(Object key, int limit) {
-		return req(Cmd.qpop_back, bytes(key), Integer.toString(limit).getBytes());
+		return req(Cmd.qpop_back, bytes(key), SSDBs.num(limit));
 	}
 
 	public Response qpop_front(Object key, int limit) {
-		return req(Cmd.qpop_front, bytes(key), Integer.toString(limit).getBytes());
+		return req(Cmd.qpop_front, bytes(key), SSDBs.num(limit));
 	}
 
 	// ------------------------
 
 	public Response rkeys(Object start, Object end, int limit) {
-		return req(Cmd.rkeys, bytes(start), bytes(end), Integer.toString(limit).getBytes());
+		return req(Cmd.rkeys, bytes(start), bytes(end), SSDBs.num(limit));
 	}
 
 	public Response decr(Object key, int val) {
@@ -523,8 +593,7 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response multi_exists(Object... keys) {
-		// TODO Auto-generated method stub
-		return null;
+		return req(Cmd.multi_exists, bytess(keys));
 	}
 
 	public Response hdecr(Object key, Object hkey, int val) {
@@ -538,13 +607,11 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response multi_hexists(Object... keys) {
-		// TODO Auto-generated method stub
-		return null;
+		return req(Cmd.multi_hexists, bytess(keys));
 	}
 
 	public Response multi_hsize(Object... keys) {
-		// TODO Auto-generated method stub
-		return null;
+		return req(Cmd.multi_hsize, bytess(keys));
 	}
 
 	public Response zdecr(Object key, Object zkey, int val) {
@@ -573,8 +640,7 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response key_range() {
-		// TODO Auto-generated method stub
-		return null;
+		return req(Cmd.key_range);
 	}
 
 	public Response compact() {
@@ -593,8 +659,7 @@ public class SimpleClient implements SSDB {
 	}
 
 	public Response get_kv_range() {
-		// TODO Auto-generated method stub
-		return null;
+		return req(Cmd.get_kv_range);
 	}
 
 	public Response set_kv_range(Object start, Object end) {
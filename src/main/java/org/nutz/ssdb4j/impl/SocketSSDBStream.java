@@ -1,67 +1,281 @@
 package org.nutz.ssdb4j.impl;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
 
 import org.nutz.ssdb4j.SSDBs;
 import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.ConnectionOptions;
 import org.nutz.ssdb4j.spi.Response;
 import org.nutz.ssdb4j.spi.SSDBException;
 
+/**
+ * 基于Socket的连接.
+ * <p></p>出错后连接被关闭, 随后在后台线程中按带随机抖动的指数退避重连并重新鉴权, 请求线程最多等待一个连接超时
+ */
 public class SocketSSDBStream extends AbstractIoSSDBStream {
 
-	private Socket socket;
+	private static ScheduledExecutorService reconnector;
+
+	private volatile Socket socket;
 	protected String host;
 	protected int port;
-	protected int timeout;
+	protected ConnectionOptions options;
 	protected byte[] auth;
 
+	/** 重连退避的初始间隔,单位毫秒 */
+	protected long backoffBase = 100;
+	/** 重连退避的最大间隔,单位毫秒 */
+	protected long backoffMax = 10000;
+
+	protected volatile boolean closed;
+	protected boolean broken;
+	protected boolean reconnecting;
+	protected int attempts;
+	protected int failures;
+	protected long nextAttempt;
+	protected int waiters;
+	protected Throwable lastError;
+	protected final Condition connected = lock.newCondition();
+
 	public SocketSSDBStream(String host, int port, int timeout) {
 		this(host, port, timeout, null);
 	}
-	
+
 	public SocketSSDBStream(String host, int port, int timeout, byte[] auth) {
-        this.socket = new Socket();
+        this(host, port, new ConnectionOptions(timeout), auth);
+    }
+
+	public SocketSSDBStream(String host, int port, ConnectionOptions options, byte[] auth) {
         this.host = host;
         this.port = port;
-        this.timeout = timeout;
+        this.options = options;
         this.auth = auth;
     }
 
+	/**
+	 * 立即建立连接并鉴权, 已连接时什么都不做. 不调用本方法时, 连接在第一次请求时才建立
+	 */
+	public void connect() {
+		lock.lock();
+		try {
+			beforeExec();
+		} finally {
+			lock.unlock();
+		}
+	}
+
 	protected void beforeExec() {
-		if (!socket.isConnected()) {
+		if (socket != null)
+			return;
+		if (closed)
+			throw new SSDBException("stream closed");
+		if (!broken) {
 			try {
-				socket.connect(new InetSocketAddress(host, port), timeout);
-				socket.setSoTimeout(timeout);
-				this.in = new BufferedInputStream(socket.getInputStream());
-				this.out = new BufferedOutputStream(socket.getOutputStream());
-				if (auth != null) {
-				    SSDBs.sendCmd(out, Cmd.auth, auth);
-		            if (!SSDBs.readResp(in).ok()) {
-		                throw new IOException("auth fail");
-		            }
-				}
+				install(open());
 			} catch (IOException e) {
 				throw new SSDBException(e);
 			}
+			return;
+		}
+		awaitReconnect();
+	}
+
+	/**
+	 * 等待后台重连完成, 最多等待一个连接超时. 连接超时不大于0时, 只等待到下一次重连尝试结束
+	 */
+	protected void awaitReconnect() {
+		int timeout = options.getConnectTimeout();
+		long deadline = System.currentTimeMillis() + timeout;
+		int seen = failures;
+		waiters++;
+		try {
+			while (socket == null) {
+				if (closed)
+					throw new SSDBException("stream closed");
+				scheduleReconnect();
+				long wait = timeout > 0 ? deadline - System.currentTimeMillis() : 0;
+				if (timeout > 0 ? wait <= 0 : failures != seen)
+					throw new SSDBException("reconnect fail, " + host + ":" + port, lastError);
+				if (wait > 0)
+					connected.await(wait, TimeUnit.MILLISECONDS);
+				else
+					connected.await();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SSDBException(e);
+		} finally {
+			waiters--;
+		}
+	}
+
+	protected Socket open() throws IOException {
+		Socket socket = new Socket();
+		try {
+			socket.setTcpNoDelay(options.isTcpNoDelay());
+			socket.setKeepAlive(options.isKeepAlive());
+			// 需在连接前设置,接收窗口才能超过64K
+			if (options.getReceiveBufferSize() > 0)
+				socket.setReceiveBufferSize(options.getReceiveBufferSize());
+			if (options.getSendBufferSize() > 0)
+				socket.setSendBufferSize(options.getSendBufferSize());
+			socket.connect(new InetSocketAddress(host, port), options.getConnectTimeout());
+			socket.setSoTimeout(options.getReadTimeout());
+			if (auth != null) {
+				SSDBOutputStream out = new SSDBOutputStream(socket.getOutputStream());
+				SSDBs.sendCmd(out, Cmd.auth, auth);
+				if (!SSDBs.readResp(new SSDBInputStream(socket.getInputStream())).ok()) {
+					throw new IOException("auth fail");
+				}
+			}
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		} catch (RuntimeException e) {
+			// 鉴权时连接被关闭或收到错误的响应, readResp会抛出SSDBException
+			socket.close();
+			throw e;
+		}
+		return socket;
+	}
+
+	protected void install(Socket socket) throws IOException {
+		this.in = new SSDBInputStream(socket.getInputStream(), options.getInputBufferSize());
+		this.out = new SSDBOutputStream(socket.getOutputStream(), options.getOutputBufferSize());
+		this.socket = socket;
+		broken = false;
+		attempts = 0;
+		lastError = null;
+	}
+
+	protected void scheduleReconnect() {
+		if (reconnecting || closed)
+			return;
+		reconnecting = true;
+		long delay = Math.max(0, nextAttempt - System.currentTimeMillis());
+		reconnector().schedule(new Runnable() {
+			public void run() {
+				reconnect();
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	protected void reconnect() {
+		Socket socket = null;
+		Throwable error = null;
+		try {
+			socket = open();
+		} catch (Throwable e) {
+			// 任何异常都要走到下面的加锁部分, 否则reconnecting一直为true, 不会再重连
+			error = e;
+		}
+		lock.lock();
+		try {
+			reconnecting = false;
+			if (socket != null) {
+				if (closed) {
+					try {
+						socket.close();
+					} catch (IOException e) {
+					}
+				} else {
+					try {
+						install(socket);
+					} catch (IOException e) {
+						error = e;
+					}
+				}
+			}
+			if (error != null) {
+				lastError = error;
+				failures++;
+				nextAttempt = System.currentTimeMillis() + backoff(attempts++);
+				// 没有线程在等时不再重试, 下一个请求会按退避时间重新触发
+				if (waiters > 0)
+					scheduleReconnect();
+			}
+			connected.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 第n次失败后的等待时间, 取[d/2, d]之间的随机值, d = min(backoffMax, backoffBase * 2^n)
+	 */
+	protected long backoff(int n) {
+		long d = backoffBase << Math.min(n, 20);
+		if (d <= 0 || d > backoffMax)
+			d = backoffMax;
+		return d / 2 + ThreadLocalRandom.current().nextLong(d / 2 + 1);
+	}
+
+	public void setBackoff(long base, long max) {
+		this.backoffBase = base;
+		this.backoffMax = max;
+	}
+
+	protected static synchronized ScheduledExecutorService reconnector() {
+		if (reconnector == null) {
+			ScheduledThreadPoolExecutor es = new ScheduledThreadPoolExecutor(Math.max(2, Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "ssdb4j-reconnect");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			es.setRemoveOnCancelPolicy(true);
+			reconnector = es;
 		}
+		return reconnector;
 	}
 
 	@Override
 	protected Response whenError(Throwable e) {
-		if (!socket.isClosed())
+		if (socket != null) {
 			try {
 				socket.close();
 			} catch (IOException e1) {
-				e1.printStackTrace();
 			}
+			socket = null;
+			in = null;
+			out = null;
+		}
+		broken = true;
+		// 立即在后台开始重连,不占用请求线程
+		scheduleReconnect();
 		return super.whenError(e);
 	}
-	
+
+	/**
+	 * 当前是否持有可用的连接
+	 */
+	public boolean isConnected() {
+		return socket != null;
+	}
+
 	public void close() throws IOException {
-		socket.close();
+		closed = true;
+		// 先关闭socket,让阻塞在读取上的请求线程尽快返回
+		Socket socket = this.socket;
+		if (socket != null)
+			socket.close();
+		lock.lock();
+		try {
+			if (this.socket != null)
+				this.socket.close();
+			this.socket = null;
+			connected.signalAll();
+		} finally {
+			lock.unlock();
+		}
 	}
 }
@@ -0,0 +1,137 @@
+package org.nutz.ssdb4j.impl;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+
+import org.nutz.ssdb4j.SSDBs;
+import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.ConnectionOptions;
+import org.nutz.ssdb4j.spi.Response;
+import org.nutz.ssdb4j.spi.SSDBException;
+
+/**
+ * 通过Unix domain socket连接同一台机器上的ssdb, 省掉TCP回环的开销
+ * <p></p>需要JDK16及以上, 相关API通过反射调用, 因此在更低版本上也能编译, 但创建时会抛出SSDBException.
+ * 阻塞的SocketChannel不支持读超时, ConnectionOptions中只有缓冲区大小有效
+ */
+public class UnixSocketSSDBStream extends AbstractIoSSDBStream {
+
+	private static Method addressOf;
+	private static Method openChannel;
+	private static ProtocolFamily unix;
+
+	private volatile SocketChannel channel;
+	protected volatile boolean closed;
+	protected String path;
+	protected ConnectionOptions options;
+	protected byte[] auth;
+
+	public UnixSocketSSDBStream(String path, byte[] auth) {
+		this(path, new ConnectionOptions(), auth);
+	}
+
+	public UnixSocketSSDBStream(String path, ConnectionOptions options, byte[] auth) {
+		init();
+		this.path = path;
+		this.options = options;
+		this.auth = auth;
+	}
+
+	protected static synchronized void init() {
+		if (unix != null)
+			return;
+		try {
+			Class<?> klass = Class.forName("java.net.UnixDomainSocketAddress");
+			addressOf = klass.getMethod("of", String.class);
+			openChannel = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+			unix = StandardProtocolFamily.valueOf("UNIX");
+		} catch (Exception e) {
+			throw new SSDBException("unix domain socket need jdk16+", e);
+		}
+	}
+
+	/**
+	 * 立即建立连接并鉴权, 已连接时什么都不做
+	 */
+	public void connect() {
+		lock.lock();
+		try {
+			beforeExec();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	protected void beforeExec() {
+		if (channel != null)
+			return;
+		if (closed)
+			throw new SSDBException("stream closed");
+		SocketChannel channel = null;
+		try {
+			channel = (SocketChannel) openChannel.invoke(null, unix);
+			channel.connect((SocketAddress) addressOf.invoke(null, path));
+			SSDBInputStream in = new SSDBInputStream(Channels.newInputStream(channel), options.getInputBufferSize());
+			SSDBOutputStream out = new SSDBOutputStream(Channels.newOutputStream(channel), options.getOutputBufferSize());
+			if (auth != null) {
+				SSDBs.sendCmd(out, Cmd.auth, auth);
+				if (!SSDBs.readResp(in).ok()) {
+					throw new IOException("auth fail");
+				}
+			}
+			// 鉴权成功后才保存, 失败时不会留下未鉴权的连接
+			this.in = in;
+			this.out = out;
+			this.channel = channel;
+		} catch (InvocationTargetException e) {
+			closeQuietly(channel);
+			throw new SSDBException(e.getCause());
+		} catch (IllegalAccessException e) {
+			throw new SSDBException(e);
+		} catch (IOException e) {
+			closeQuietly(channel);
+			throw new SSDBException(e);
+		} catch (RuntimeException e) {
+			closeQuietly(channel);
+			throw e;
+		}
+	}
+
+	@Override
+	protected Response whenError(Throwable e) {
+		// 下一次请求时重新连接
+		closeQuietly(channel);
+		channel = null;
+		return super.whenError(e);
+	}
+
+	protected static void closeQuietly(SocketChannel channel) {
+		if (channel != null)
+			try {
+				channel.close();
+			} catch (IOException e) {
+			}
+	}
+
+	public void close() throws IOException {
+		closed = true;
+		// 先关闭channel, 让阻塞在读取上的请求线程尽快返回
+		SocketChannel channel = this.channel;
+		if (channel != null)
+			channel.close();
+		lock.lock();
+		try {
+			if (this.channel != null)
+				this.channel.close();
+			this.channel = null;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
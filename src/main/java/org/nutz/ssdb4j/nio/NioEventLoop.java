@@ -0,0 +1,133 @@
+package org.nutz.ssdb4j.nio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.nutz.ssdb4j.spi.SSDBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 单线程事件循环,负责一组连接的全部IO. 其他线程通过execute/schedule向其提交任务
+ *
+ */
+public class NioEventLoop implements Runnable, Closeable {
+
+	static final Logger LOG = LoggerFactory.getLogger(NioEventLoop.class);
+
+	/** 注册到Selector上的处理器 */
+	public interface Handler {
+		void ready(SelectionKey key);
+	}
+
+	protected Selector selector;
+	protected Thread thread;
+	protected Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+	protected PriorityQueue<_Timer> timers = new PriorityQueue<_Timer>();
+	protected volatile boolean closed;
+
+	public NioEventLoop(String name) {
+		try {
+			selector = Selector.open();
+		} catch (IOException e) {
+			throw new SSDBException(e);
+		}
+		thread = new Thread(this, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public Selector selector() {
+		return selector;
+	}
+
+	public boolean inLoop() {
+		return Thread.currentThread() == thread;
+	}
+
+	public void execute(Runnable task) {
+		tasks.add(task);
+		if (!inLoop())
+			selector.wakeup();
+	}
+
+	/**
+	 * 延迟执行一个任务,任务在事件循环线程中执行
+	 */
+	public void schedule(final Runnable task, long delayMillis) {
+		final _Timer timer = new _Timer(System.nanoTime() + delayMillis * 1000000L, task);
+		execute(new Runnable() {
+			public void run() {
+				timers.add(timer);
+			}
+		});
+	}
+
+	public void run() {
+		while (!closed) {
+			try {
+				long wait = 0;
+				_Timer timer = timers.peek();
+				if (timer != null)
+					wait = Math.max(1, (timer.deadline - System.nanoTime()) / 1000000L);
+				if (tasks.isEmpty())
+					selector.select(wait);
+				else
+					selector.selectNow();
+				Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					SelectionKey key = it.next();
+					it.remove();
+					if (key.isValid())
+						((Handler) key.attachment()).ready(key);
+				}
+				Runnable task;
+				while ((task = tasks.poll()) != null)
+					runSafely(task);
+				long now = System.nanoTime();
+				while ((timer = timers.peek()) != null && timer.deadline - now <= 0)
+					runSafely(timers.poll().task);
+			} catch (Throwable e) {
+				LOG.warn("event loop error", e);
+			}
+		}
+		try {
+			selector.close();
+		} catch (IOException e) {
+		}
+	}
+
+	protected void runSafely(Runnable task) {
+		try {
+			task.run();
+		} catch (Throwable e) {
+			LOG.warn("event loop task error", e);
+		}
+	}
+
+	public void close() throws IOException {
+		closed = true;
+		selector.wakeup();
+	}
+
+	static class _Timer implements Comparable<_Timer> {
+		long deadline;
+		Runnable task;
+
+		_Timer(long deadline, Runnable task) {
+			this.deadline = deadline;
+			this.task = task;
+		}
+
+		public int compareTo(_Timer o) {
+			long d = deadline - o.deadline;
+			return d < 0 ? -1 : (d == 0 ? 0 : 1);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package org.nutz.ssdb4j.nio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一组事件循环线程,连接按轮询方式分配到各个线程上
+ *
+ */
+public class NioEventLoopGroup implements Closeable {
+
+	private static NioEventLoopGroup shared;
+
+	protected NioEventLoop[] loops;
+	protected AtomicInteger next = new AtomicInteger();
+
+	public NioEventLoopGroup(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must bigger than 0");
+		loops = new NioEventLoop[threads];
+		for (int i = 0; i < threads; i++)
+			loops[i] = new NioEventLoop("ssdb4j-nio-" + i);
+	}
+
+	/**
+	 * 进程内共享的默认线程组,线程数与CPU核数相同
+	 */
+	public static synchronized NioEventLoopGroup shared() {
+		if (shared == null)
+			shared = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors());
+		return shared;
+	}
+
+	public NioEventLoop next() {
+		return loops[(next.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+	}
+
+	public void close() throws IOException {
+		for (NioEventLoop loop : loops)
+			loop.close();
+	}
+}
@@ -0,0 +1,362 @@
+package org.nutz.ssdb4j.nio;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+import org.nutz.ssdb4j.SSDBs;
+import org.nutz.ssdb4j.impl.SocketSSDBStream;
+import org.nutz.ssdb4j.spi.AsyncSSDBStream;
+import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.Response;
+import org.nutz.ssdb4j.spi.SSDBException;
+import org.nutz.ssdb4j.spi.SSDBStreamCallback;
+
+/**
+ * 基于SocketChannel+Selector的非阻塞SSDBStream. 所有IO都在所属的事件循环线程中完成,
+ * 调用方线程只负责把请求放入队列,因此任意多个线程可以共享一个连接而不必各自阻塞在socket上.
+ *
+ */
+public class NioSSDBStream implements AsyncSSDBStream {
+
+	/** 每个连接的读写缓冲区大小 */
+	public static int BUFFER_SIZE = 64 * 1024;
+
+	protected String host;
+	protected int port;
+	protected int timeout;
+	protected byte[] auth;
+	protected NioEventLoop loop;
+
+	/* 以下缓冲区只在事件循环线程中使用,重连时复用 */
+	protected ByteBuffer writeBuf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	protected ByteBuffer readBuf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	protected ResponseParser parser = new ResponseParser();
+
+	protected volatile _Conn conn;
+
+	public NioSSDBStream(String host, int port, int timeout, byte[] auth) {
+		this(host, port, timeout, auth, NioEventLoopGroup.shared());
+	}
+
+	public NioSSDBStream(String host, int port, int timeout, byte[] auth, NioEventLoopGroup group) {
+		this.host = host;
+		this.port = port;
+		this.timeout = timeout;
+		this.auth = auth;
+		this.loop = group.next();
+	}
+
+	public Response req(Cmd cmd, byte[]... vals) {
+		_Conn conn = conn();
+		_Req req = new _Req(cmd, vals);
+		conn.send(req);
+		try {
+			return SSDBs.await(req.future, timeout, cmd);
+		} finally {
+			// 超时说明连接可能已经挂起,在事件循环中关掉它,后续请求由conn()重连
+			if (req.future.isCancelled())
+				conn.close(new SSDBException("timeout"));
+		}
+	}
+
+	public CompletableFuture<Response> reqAsync(Cmd cmd, byte[]... vals) {
+		_Req req = new _Req(cmd, vals);
+		conn().send(req);
+		return req.future;
+	}
+
+	protected _Conn conn() {
+		_Conn conn = this.conn;
+		if (conn != null && !conn.closed)
+			return conn;
+		synchronized (this) {
+			conn = this.conn;
+			if (conn == null || conn.closed) {
+				conn = new _Conn();
+				conn.connect();
+				this.conn = conn;
+			}
+			return conn;
+		}
+	}
+
+	/**
+	 * 非阻塞连接上无法提供输入输出流,所以回调在一个临时的阻塞连接上执行
+	 */
+	public void callback(SSDBStreamCallback callback) {
+		SocketSSDBStream stream = new SocketSSDBStream(host, port, timeout, auth);
+		try {
+			stream.callback(callback);
+		} finally {
+			try {
+				stream.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	public void close() throws IOException {
+		_Conn conn = this.conn;
+		if (conn != null)
+			conn.close(null);
+	}
+
+	static int blockSize(byte[] data) {
+		int len = data == null ? 0 : data.length;
+		return SSDBs.digits(len) + len + 2;
+	}
+
+	static void putBlock(ByteBuffer buf, byte[] data) {
+		if (data == null)
+			data = SSDBs.EMPTY_ARG;
+		int len = data.length;
+		int end = buf.position() + SSDBs.digits(len);
+		for (int i = end - 1; i >= buf.position(); i--) {
+			buf.put(i, (byte) ('0' + len % 10));
+			len /= 10;
+		}
+		buf.position(end);
+		buf.put((byte) '\n');
+		buf.put(data);
+		buf.put((byte) '\n');
+	}
+
+	static class _Req {
+		Cmd cmd;
+		byte[][] vals;
+		CompletableFuture<Response> future = new CompletableFuture<Response>();
+
+		_Req(Cmd cmd, byte[][] vals) {
+			this.cmd = cmd;
+			this.vals = vals;
+		}
+
+		int size() {
+			int size = cmd.header().length + 1;
+			for (byte[] val : vals)
+				size += blockSize(val);
+			return size;
+		}
+
+		void encode(ByteBuffer buf) {
+			buf.put(cmd.header());
+			for (byte[] val : vals)
+				putBlock(buf, val);
+			buf.put((byte) '\n');
+		}
+	}
+
+	/**
+	 * 一次物理连接. 除queue和closed外,其余字段只在事件循环线程中访问
+	 */
+	class _Conn implements NioEventLoop.Handler, Runnable {
+
+		SocketChannel channel;
+		SelectionKey key;
+		boolean connected;
+		volatile boolean closed;
+		Queue<_Req> queue = new ConcurrentLinkedQueue<_Req>();
+		AtomicBoolean scheduled = new AtomicBoolean();
+		Queue<CompletableFuture<Response>> pending = new ArrayDeque<CompletableFuture<Response>>();
+		_Req carry;
+		ByteBuffer sending;
+
+		void connect() {
+			final boolean immediate;
+			try {
+				channel = SocketChannel.open();
+				channel.configureBlocking(false);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				// 连本机时可能立即连上, 此时不会再触发OP_CONNECT
+				immediate = channel.connect(new InetSocketAddress(host, port));
+			} catch (IOException e) {
+				close(e);
+				throw new SSDBException(e);
+			}
+			if (auth != null) {
+				_Req req = new _Req(Cmd.auth, new byte[][]{auth});
+				req.future.whenComplete(new BiConsumer<Response, Throwable>() {
+					public void accept(Response resp, Throwable e) {
+						if (resp != null && !resp.ok())
+							close(new IOException("auth fail"));
+					}
+				});
+				queue.add(req);
+			}
+			loop.execute(new Runnable() {
+				public void run() {
+					try {
+						key = channel.register(loop.selector(), immediate ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, _Conn.this);
+						if (immediate)
+							connected();
+					} catch (IOException e) {
+						close(e);
+					}
+				}
+			});
+			// 超时不大于0表示不限制连接时间
+			if (timeout > 0 && !immediate)
+				loop.schedule(new Runnable() {
+					public void run() {
+						if (!connected)
+							close(new IOException("connect timeout " + host + ":" + port));
+					}
+				}, timeout);
+		}
+
+		/** 连接建立后在事件循环线程中调用 */
+		void connected() throws IOException {
+			connected = true;
+			readBuf.clear();
+			parser.reset();
+			key.interestOps(SelectionKey.OP_READ);
+			write();
+		}
+
+		void send(_Req req) {
+			queue.add(req);
+			if (closed) {
+				drain(new SSDBException("connection closed"));
+				return;
+			}
+			if (scheduled.compareAndSet(false, true))
+				loop.execute(this);
+		}
+
+		/** 事件循环线程中的写任务 */
+		public void run() {
+			scheduled.set(false);
+			try {
+				write();
+			} catch (Throwable e) {
+				close(e);
+			}
+		}
+
+		public void ready(SelectionKey key) {
+			try {
+				if (key.isConnectable()) {
+					// 返回false表示连接仍在进行中, 等待下一次OP_CONNECT
+					if (channel.finishConnect())
+						connected();
+					return;
+				}
+				if (key.isReadable())
+					read();
+				if (key.isValid() && key.isWritable())
+					write();
+			} catch (Throwable e) {
+				close(e);
+			}
+		}
+
+		void read() throws IOException {
+			int r = channel.read(readBuf);
+			if (r == -1)
+				throw new IOException("stream end");
+			readBuf.flip();
+			Response resp;
+			while ((resp = parser.parse(readBuf)) != null) {
+				CompletableFuture<Response> future = pending.poll();
+				if (future == null)
+					throw new SSDBException("protocol error. unexpect response");
+				future.complete(resp);
+			}
+			readBuf.clear();
+		}
+
+		void write() throws IOException {
+			if (!connected || closed)
+				return;
+			while (true) {
+				if (sending != null) {
+					channel.write(sending);
+					if (sending.hasRemaining()) {
+						key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+						return;
+					}
+					sending = null;
+				}
+				writeBuf.clear();
+				while (sending == null) {
+					_Req req = carry != null ? carry : queue.poll();
+					carry = null;
+					if (req == null)
+						break;
+					// 发送前已超时或被取消的请求不再发送
+					if (req.future.isDone())
+						continue;
+					int size = req.size();
+					if (size > writeBuf.remaining()) {
+						if (writeBuf.position() > 0) {
+							carry = req;
+							break;
+						}
+						// 超过整个缓冲区的大请求,单独分配
+						sending = ByteBuffer.allocate(size);
+						req.encode(sending);
+						sending.flip();
+					} else {
+						req.encode(writeBuf);
+					}
+					pending.add(req.future);
+				}
+				if (sending == null) {
+					if (writeBuf.position() == 0) {
+						key.interestOps(SelectionKey.OP_READ);
+						return;
+					}
+					writeBuf.flip();
+					sending = writeBuf;
+				}
+			}
+		}
+
+		void close(Throwable cause) {
+			closed = true;
+			final SSDBException e = cause == null ? new SSDBException("connection closed") : new SSDBException(cause);
+			if (loop.inLoop()) {
+				closeInLoop(e);
+			} else {
+				loop.execute(new Runnable() {
+					public void run() {
+						closeInLoop(e);
+					}
+				});
+			}
+			drain(e);
+		}
+
+		void closeInLoop(SSDBException e) {
+			try {
+				if (channel != null)
+					channel.close();
+			} catch (IOException e1) {
+			}
+			CompletableFuture<Response> future;
+			while ((future = pending.poll()) != null)
+				future.completeExceptionally(e);
+			if (carry != null) {
+				carry.future.completeExceptionally(e);
+				carry = null;
+			}
+			sending = null;
+		}
+
+		void drain(SSDBException e) {
+			_Req req;
+			while ((req = queue.poll()) != null)
+				req.future.completeExceptionally(e);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package org.nutz.ssdb4j.nio;
+
+import java.nio.ByteBuffer;
+
+import org.nutz.ssdb4j.SSDBs;
+import org.nutz.ssdb4j.spi.BufferResponse;
+import org.nutz.ssdb4j.spi.Response;
+import org.nutz.ssdb4j.spi.SSDBException;
+
+/**
+ * 增量式的响应解析器,数据可以分多次到达,每凑齐一个完整响应就返回一个
+ * <p></p>非线程安全,只应在所属的事件循环线程中使用
+ *
+ */
+public class ResponseParser {
+
+	private static final int LEN = 0;
+	private static final int DATA = 1;
+	private static final int LF = 2;
+
+	protected int state = LEN;
+	protected int len;
+	protected boolean digits;
+	protected byte[] data;
+	protected int count;
+	protected int end;
+	protected Response resp;
+
+	/**
+	 * 从缓冲区中解析数据
+	 * @param buf 处于读模式的缓冲区
+	 * @return 解析出一个完整响应时返回该响应,数据不足时返回null
+	 */
+	public Response parse(ByteBuffer buf) {
+		while (buf.hasRemaining()) {
+			switch (state) {
+			case LEN:
+				byte d = buf.get();
+				if (d >= '0' && d <= '9') {
+					len = len * 10 + (d - '0');
+					digits = true;
+				} else if (d == '\n') {
+					if (!digits) {
+						if (resp == null || resp.stat == null)
+							throw new SSDBException("protocol error. unexpect \\n");
+						Response done = resp;
+						resp = null;
+						return done;
+					}
+					if (resp == null)
+						resp = SSDBs.respFactory.make();
+					if (resp instanceof BufferResponse) {
+						// 直接读入响应的连续缓冲区
+						count = ((BufferResponse) resp).reserve(len);
+						data = ((BufferResponse) resp).buffer();
+					} else {
+						data = new byte[len];
+						count = 0;
+					}
+					end = count + len;
+					state = DATA;
+				} else {
+					throw new SSDBException("protocol error. unexpect byte=" + d);
+				}
+				break;
+			case DATA:
+				int n = Math.min(end - count, buf.remaining());
+				buf.get(data, count, n);
+				count += n;
+				if (count == end)
+					state = LF;
+				break;
+			case LF:
+				d = buf.get();
+				if (d != '\n')
+					throw new SSDBException("protocol error. unexpect byte=" + d);
+				block(data, end - len, len);
+				data = null;
+				len = 0;
+				digits = false;
+				state = LEN;
+				break;
+			}
+		}
+		return null;
+	}
+
+	protected void block(byte[] data, int off, int len) {
+		if (resp.stat == null)
+			resp.stat = SSDBs.status(data, off, len);
+		else if (!(resp instanceof BufferResponse))
+			resp.datas.add(data);
+	}
+
+	public void reset() {
+		state = LEN;
+		len = 0;
+		digits = false;
+		data = null;
+		resp = null;
+	}
+}
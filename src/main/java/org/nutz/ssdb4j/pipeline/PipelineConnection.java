@@ -0,0 +1,128 @@
+package org.nutz.ssdb4j.pipeline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.nutz.ssdb4j.SSDBs;
+import org.nutz.ssdb4j.impl.SSDBInputStream;
+import org.nutz.ssdb4j.impl.SSDBOutputStream;
+import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.Response;
+import org.nutz.ssdb4j.spi.SSDBException;
+
+/**
+ * 一个可被多线程共享的连接. 写入在锁内完成并把对应的Future放入队列,
+ * 由专门的读线程按FIFO顺序把响应交给队列中的Future.
+ *
+ */
+public class PipelineConnection implements Closeable, Runnable {
+
+	protected Socket socket;
+	protected InputStream in;
+	protected OutputStream out;
+
+	protected final Queue<CompletableFuture<Response>> pending = new ConcurrentLinkedQueue<CompletableFuture<Response>>();
+	protected final ReentrantLock writeLock = new ReentrantLock();
+	protected volatile boolean closed;
+
+	public PipelineConnection(String host, int port, int timeout, byte[] auth) {
+		socket = new Socket();
+		try {
+			socket.connect(new InetSocketAddress(host, port), timeout);
+			socket.setTcpNoDelay(true);
+			socket.setSoTimeout(timeout);
+			in = new SSDBInputStream(socket.getInputStream());
+			out = new SSDBOutputStream(socket.getOutputStream());
+			if (auth != null) {
+				SSDBs.sendCmd(out, Cmd.auth, auth);
+				if (!SSDBs.readResp(in).ok())
+					throw new IOException("auth fail");
+			}
+			// 读线程在空闲时需要一直阻塞,请求超时由调用方等待Future时控制
+			socket.setSoTimeout(0);
+		} catch (IOException e) {
+			try {
+				socket.close();
+			} catch (IOException e1) {
+			}
+			throw new SSDBException(e);
+		}
+		Thread reader = new Thread(this, "ssdb4j-pipeline-" + host + ":" + port);
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	public CompletableFuture<Response> send(Cmd cmd, byte[]... vals) {
+		CompletableFuture<Response> future = new CompletableFuture<Response>();
+		writeLock.lock();
+		try {
+			if (closed) {
+				future.completeExceptionally(new SSDBException("connection closed"));
+				return future;
+			}
+			pending.add(future);
+			try {
+				SSDBs.sendCmd(out, cmd, vals);
+			} catch (Throwable e) {
+				close(e);
+			}
+		} finally {
+			writeLock.unlock();
+		}
+		return future;
+	}
+
+	public void run() {
+		try {
+			while (!closed) {
+				Response resp = SSDBs.readResp(in);
+				CompletableFuture<Response> future = pending.poll();
+				if (future == null)
+					throw new SSDBException("protocol error. unexpect response");
+				future.complete(resp);
+			}
+		} catch (Throwable e) {
+			close(e);
+		}
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * 当前已发送但尚未收到响应的请求数
+	 */
+	public int inflight() {
+		return pending.size();
+	}
+
+	protected void close(Throwable cause) {
+		closed = true;
+		try {
+			socket.close();
+		} catch (IOException e) {
+		}
+		writeLock.lock();
+		try {
+			SSDBException e = cause == null ? new SSDBException("connection closed") : new SSDBException(cause);
+			CompletableFuture<Response> future;
+			while ((future = pending.poll()) != null)
+				future.completeExceptionally(e);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	public void close() throws IOException {
+		close(null);
+	}
+}
@@ -0,0 +1,111 @@
+package org.nutz.ssdb4j.pipeline;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.nutz.ssdb4j.SSDBs;
+import org.nutz.ssdb4j.impl.SocketSSDBStream;
+import org.nutz.ssdb4j.spi.AsyncSSDBStream;
+import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.Response;
+import org.nutz.ssdb4j.spi.SSDBException;
+import org.nutz.ssdb4j.spi.SSDBStreamCallback;
+
+/**
+ * 基于少量共享连接的SSDBStream,任意多个线程可同时在同一连接上发出请求,
+ * 无需为每个线程借还连接.
+ *
+ */
+public class PipelineSSDBStream implements AsyncSSDBStream {
+
+	protected String host;
+	protected int port;
+	protected int timeout;
+	protected byte[] auth;
+
+	protected AtomicReferenceArray<PipelineConnection> conns;
+	protected AtomicInteger next = new AtomicInteger();
+	protected ReentrantLock lock = new ReentrantLock();
+	protected volatile boolean closed;
+
+	public PipelineSSDBStream(String host, int port, int timeout, byte[] auth, int connections) {
+		if (connections < 1)
+			throw new IllegalArgumentException("connections must bigger than 0");
+		this.host = host;
+		this.port = port;
+		this.timeout = timeout;
+		this.auth = auth;
+		this.conns = new AtomicReferenceArray<PipelineConnection>(connections);
+	}
+
+	public Response req(Cmd cmd, byte[]... vals) {
+		PipelineConnection conn = conn();
+		CompletableFuture<Response> future = conn.send(cmd, vals);
+		try {
+			return SSDBs.await(future, timeout, cmd);
+		} finally {
+			// 超时说明连接可能已经挂起,关掉它让其上的请求全部失败,后续请求由conn()换新连接
+			if (future.isCancelled())
+				conn.close(new SSDBException("timeout"));
+		}
+	}
+
+	public CompletableFuture<Response> reqAsync(Cmd cmd, byte[]... vals) {
+		return conn().send(cmd, vals);
+	}
+
+	protected PipelineConnection conn() {
+		if (closed)
+			throw new SSDBException("stream closed");
+		int index = (next.getAndIncrement() & Integer.MAX_VALUE) % conns.length();
+		PipelineConnection conn = conns.get(index);
+		if (conn != null && !conn.isClosed())
+			return conn;
+		// 新建连接是阻塞的,用ReentrantLock以免在虚拟线程上占住载体线程
+		lock.lock();
+		try {
+			if (closed)
+				throw new SSDBException("stream closed");
+			conn = conns.get(index);
+			if (conn == null || conn.isClosed()) {
+				conn = new PipelineConnection(host, port, timeout, auth);
+				conns.set(index, conn);
+			}
+			return conn;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 共享连接上无法独占输入输出流,所以回调在一个临时的独立连接上执行
+	 */
+	public void callback(SSDBStreamCallback callback) {
+		SocketSSDBStream stream = new SocketSSDBStream(host, port, timeout, auth);
+		try {
+			stream.callback(callback);
+		} finally {
+			try {
+				stream.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	public void close() throws IOException {
+		closed = true;
+		lock.lock();
+		try {
+			for (int i = 0; i < conns.length(); i++) {
+				PipelineConnection conn = conns.getAndSet(i, null);
+				if (conn != null)
+					conn.close();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+}
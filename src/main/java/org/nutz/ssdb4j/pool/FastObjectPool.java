@@ -0,0 +1,64 @@
+package org.nutz.ssdb4j.pool;
+
+import org.apache.commons.pool.ObjectPool;
+import org.apache.commons.pool.PoolableObjectFactory;
+import org.nutz.ssdb4j.fastpool.FastPool;
+import org.nutz.ssdb4j.fastpool.PooledSSDBStream;
+import org.nutz.ssdb4j.spi.SSDBStream;
+
+/**
+ * 以commons-pool 1.x的ObjectPool接口暴露FastPool,供PoolSSDBStream使用
+ *
+ */
+public class FastObjectPool implements ObjectPool<SSDBStream> {
+
+	protected FastPool pool;
+
+	public FastObjectPool(FastPool pool) {
+		this.pool = pool;
+	}
+
+	public SSDBStream borrowObject() throws Exception {
+		return pool.borrow();
+	}
+
+	public void returnObject(SSDBStream obj) throws Exception {
+		pool.release((PooledSSDBStream) obj);
+	}
+
+	/**
+	 * PoolSSDBStream在请求出错时调用, 能自行重连的连接会照常归还
+	 */
+	public void invalidateObject(SSDBStream obj) throws Exception {
+		pool.recover((PooledSSDBStream) obj);
+	}
+
+	public void addObject() throws Exception {
+		pool.addIdle();
+	}
+
+	public int getNumIdle() throws UnsupportedOperationException {
+		return pool.getNumIdle();
+	}
+
+	public int getNumActive() throws UnsupportedOperationException {
+		return pool.getNumActive();
+	}
+
+	public void clear() throws Exception, UnsupportedOperationException {
+		pool.clear();
+	}
+
+	public void close() throws Exception {
+		pool.close();
+	}
+
+	@Deprecated
+	public void setFactory(PoolableObjectFactory<SSDBStream> factory) throws IllegalStateException, UnsupportedOperationException {
+		throw new UnsupportedOperationException();
+	}
+
+	public FastPool getPool() {
+		return pool;
+	}
+}
@@ -1,8 +1,10 @@
 package org.nutz.ssdb4j.pool;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.pool.ObjectPool;
+import org.nutz.ssdb4j.fastpool.PoolMetrics;
 import org.nutz.ssdb4j.spi.Cmd;
 import org.nutz.ssdb4j.spi.Response;
 import org.nutz.ssdb4j.spi.SSDBException;
@@ -48,6 +50,24 @@ public class PoolSSDBStream implements SSDBStream {
 		}
 	}
 	
+	/**
+	 * 连接池的统计信息,只有底层为FastObjectPool时才有
+	 */
+	public PoolMetrics getMetrics() {
+		if (pool instanceof FastObjectPool)
+			return ((FastObjectPool)pool).getPool().getMetrics();
+		return null;
+	}
+	
+	/**
+	 * 等待启动预热完成, 可用于就绪检查. 底层不是FastObjectPool时直接返回true
+	 */
+	public boolean awaitReady(long timeout, TimeUnit unit) {
+		if (pool instanceof FastObjectPool)
+			return ((FastObjectPool)pool).getPool().awaitReady(timeout, unit);
+		return true;
+	}
+	
 	public void close() throws IOException {
 		try {
 			pool.close();
@@ -1,11 +1,10 @@
 package org.nutz.ssdb4j.pool;
 
-import org.apache.commons.pool.BasePoolableObjectFactory;
 import org.apache.commons.pool.impl.GenericObjectPool;
 import org.apache.commons.pool.impl.GenericObjectPool.Config;
-import org.nutz.ssdb4j.impl.SocketSSDBStream;
-import org.nutz.ssdb4j.spi.Cmd;
-import org.nutz.ssdb4j.spi.SSDBStream;
+import org.nutz.ssdb4j.fastpool.FastPoolConfig;
+import org.nutz.ssdb4j.fastpool.FastPools;
+import org.nutz.ssdb4j.spi.ConnectionOptions;
 
 public class Pools {
     
@@ -14,30 +13,49 @@ public class Pools {
     }
 
     public static PoolSSDBStream pool(final String host, final int port, final int timeout, Object cnf, final byte[] auth) {
+        return pool(host, port, timeout, cnf, auth, 0);
+    }
+
+    /**
+     * @param warmUpTimeout 按配置中的minIdle预先建立连接,并最多等待多少毫秒, 0表示在后台预热
+     */
+    public static PoolSSDBStream pool(final String host, final int port, final int timeout, Object cnf, final byte[] auth, long warmUpTimeout) {
+        return pool(host, port, new ConnectionOptions(timeout), cnf, auth, warmUpTimeout);
+    }
+
+    /**
+     * @param options 每个连接的参数
+     * @param warmUpTimeout 按配置中的minIdle预先建立连接,并最多等待多少毫秒, 0表示在后台预热
+     */
+    public static PoolSSDBStream pool(final String host, final int port, final ConnectionOptions options, Object cnf, final byte[] auth, long warmUpTimeout) {
         if (cnf == null) {
             Config config = new Config();
             config.maxActive = 10;
-            config.testWhileIdle = true;
             cnf = config;
         }
-        return new PoolSSDBStream(new GenericObjectPool<SSDBStream>(new BasePoolableObjectFactory<SSDBStream>() {
-            
-            public SSDBStream makeObject() throws Exception {
-                return new SocketSSDBStream(host, port, timeout, auth);
-            }
+        FastPoolConfig fast = toFastPoolConfig((Config)cnf);
+        return new PoolSSDBStream(new FastObjectPool(FastPools.create(host, port, options, fast, auth, warmUpTimeout)));
+    }
 
-            public boolean validateObject(SSDBStream stream) {
-                try {
-                    return stream.req(Cmd.ping).ok();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    return false;
-                }
-            }
-            
-            public void destroyObject(SSDBStream obj) throws Exception {
-                obj.close();
-            }
-        }, (Config)cnf));
+    /**
+     * 把commons-pool 1.x的配置转换为FastPool的配置,只有maxActive/minIdle/maxWait/whenExhaustedAction/testOnBorrow/testWhileIdle有效.
+     * FastPool没有后台检查线程, testWhileIdle改为借出时检查空闲超过timeBetweenEvictionRunsMillis(未设置时为30秒)的连接
+     */
+    public static FastPoolConfig toFastPoolConfig(Config config) {
+        FastPoolConfig cnf = new FastPoolConfig();
+        if (config.maxActive > 0)
+            cnf.setMaxTotal(config.maxActive);
+        else
+            cnf.setMaxTotal(128);
+        if (config.whenExhaustedAction == GenericObjectPool.WHEN_EXHAUSTED_FAIL)
+            cnf.setMaxWaitMillis(0);
+        else
+            cnf.setMaxWaitMillis(config.maxWait);
+        cnf.setMinIdle(config.minIdle);
+        cnf.setTestOnBorrow(config.testOnBorrow);
+        cnf.setTestWhileIdle(config.testWhileIdle);
+        if (config.timeBetweenEvictionRunsMillis > 0)
+            cnf.setIdleTestMillis(config.timeBetweenEvictionRunsMillis);
+        return cnf;
     }
 }
@@ -12,6 +12,11 @@ import org.nutz.ssdb4j.spi.SSDBStreamCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * 基于commons-pool2的连接池.
+ * @deprecated Pool2s已改为创建FastPool, 本类不再被使用. 请用Pool2s.pool或FastPools创建连接池, 原有的配置会被转换
+ */
+@Deprecated
 public class Pool2SSDBStream implements SSDBStream {
 
 	static final Logger LOG = LoggerFactory.getLogger(Pool2SSDBStream.class);
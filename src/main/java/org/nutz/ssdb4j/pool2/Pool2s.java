@@ -1,12 +1,9 @@
 package org.nutz.ssdb4j.pool2;
 
-import org.apache.commons.pool2.BasePooledObjectFactory;
-import org.apache.commons.pool2.PooledObject;
-import org.apache.commons.pool2.impl.DefaultPooledObject;
-import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
-import org.nutz.ssdb4j.impl.SocketSSDBStream;
-import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.fastpool.FastPoolConfig;
+import org.nutz.ssdb4j.fastpool.FastPools;
+import org.nutz.ssdb4j.spi.ConnectionOptions;
 import org.nutz.ssdb4j.spi.SSDBStream;
 
 public class Pool2s {
@@ -15,51 +12,47 @@ public class Pool2s {
 	}
 
 	public static SSDBStream pool(final String host, final int port, final int timeout, Object cnf, final byte[] auth) {
+		return pool(host, port, timeout, cnf, auth, 0);
+	}
+
+	/**
+	 * @param warmUpTimeout 按配置中的minIdle预先建立连接,并最多等待多少毫秒, 0表示在后台预热
+	 */
+	public static SSDBStream pool(final String host, final int port, final int timeout, Object cnf, final byte[] auth, long warmUpTimeout) {
+		return pool(host, port, new ConnectionOptions(timeout), cnf, auth, warmUpTimeout);
+	}
+
+	/**
+	 * @param options 每个连接的参数
+	 * @param warmUpTimeout 按配置中的minIdle预先建立连接,并最多等待多少毫秒, 0表示在后台预热
+	 */
+	public static SSDBStream pool(final String host, final int port, final ConnectionOptions options, Object cnf, final byte[] auth, long warmUpTimeout) {
 		if (cnf == null) {
 			GenericObjectPoolConfig config = new GenericObjectPoolConfig();
 			config.setMaxTotal(20);
-			config.setMaxIdle(10);
-			config.setTestWhileIdle(true);
 			cnf = config;
 		}
-		return new Pool2SSDBStream(new GenericObjectPool<SSDBStream>(new BasePooledObjectFactory<SSDBStream>() {
-			@Override
-			public SSDBStream create() throws Exception {
-				return new SocketSSDBStream(host, port, timeout, auth);
-			}
-
-			@Override
-			public PooledObject<SSDBStream> wrap(SSDBStream arg0) {
-				return new DefaultPooledObject<SSDBStream>(arg0);
-			}
-
-			@Override
-			public PooledObject<SSDBStream> makeObject() throws Exception {
-				return wrap(create());
-			}
-
-			@Override
-			public void destroyObject(PooledObject<SSDBStream> p) throws Exception {
-				p.getObject().close();
-			}
-
-			@Override
-			public boolean validateObject(PooledObject<SSDBStream> p) {
-				try {
-					return p.getObject().req(Cmd.ping).ok();
-				} catch (Exception e) {
-					e.printStackTrace();
-					return false;
-				}
-			}
-
-			@Override
-			public void activateObject(PooledObject<SSDBStream> p) throws Exception {
-			}
+		GenericObjectPoolConfig config = (GenericObjectPoolConfig) cnf;
+		FastPoolConfig fast = toFastPoolConfig(config);
+		// jmxEnabled默认为true, 只有显式设置了jmxNameBase才注册, 以免未关闭的连接池被MBeanServer一直引用
+		if (config.getJmxEnabled() && config.getJmxNameBase() != null)
+			fast.setJmxName(config.getJmxNameBase());
+		return FastPools.pool(host, port, options, fast, auth, warmUpTimeout);
+	}
 
-			@Override
-			public void passivateObject(PooledObject<SSDBStream> p) throws Exception {
-			}
-		}, (GenericObjectPoolConfig) cnf));
+	/**
+	 * 把commons-pool2的配置转换为FastPool的配置,只有maxTotal/minIdle/maxWaitMillis/blockWhenExhausted/testOnBorrow/testWhileIdle有效.
+	 * FastPool没有后台检查线程, testWhileIdle改为借出时检查空闲超过timeBetweenEvictionRunsMillis(未设置时为30秒)的连接
+	 */
+	public static FastPoolConfig toFastPoolConfig(GenericObjectPoolConfig config) {
+		FastPoolConfig cnf = new FastPoolConfig();
+		cnf.setMaxTotal(config.getMaxTotal() > 0 ? config.getMaxTotal() : 128);
+		cnf.setMaxWaitMillis(config.getBlockWhenExhausted() ? config.getMaxWaitMillis() : 0);
+		cnf.setMinIdle(config.getMinIdle());
+		cnf.setTestOnBorrow(config.getTestOnBorrow());
+		cnf.setTestWhileIdle(config.getTestWhileIdle());
+		if (config.getTimeBetweenEvictionRunsMillis() > 0)
+			cnf.setIdleTestMillis(config.getTimeBetweenEvictionRunsMillis());
+		return cnf;
 	}
 }
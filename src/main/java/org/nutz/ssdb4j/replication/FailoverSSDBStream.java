@@ -0,0 +1,193 @@
+package org.nutz.ssdb4j.replication;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.Response;
+import org.nutz.ssdb4j.spi.SSDBStream;
+import org.nutz.ssdb4j.spi.SSDBStreamCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 在一组候选节点中自动跟随可写的主库, 可作为ReplicationSSDMStream的master使用.
+ * <p></p>定期或在请求出错后立即在后台用info探测各候选节点, 当前主库不可达或已变为从库时, 切换到一个可写的节点.
+ * 切换只替换一个引用, 不会阻塞进行中的请求和发往从库的读请求.
+ * 出错的请求不会重试, 因为写操作未必幂等
+ */
+public class FailoverSSDBStream implements SSDBStream {
+
+	static final Logger LOG = LoggerFactory.getLogger(FailoverSSDBStream.class);
+
+	private static ScheduledExecutorService prober;
+
+	protected final String[] names;
+	protected final SSDBStream[] candidates;
+	protected final AtomicInteger current = new AtomicInteger();
+	protected final AtomicBoolean probing = new AtomicBoolean();
+	protected ScheduledFuture<?> monitor;
+
+	/**
+	 * @param names 候选节点的名称, 仅用于日志
+	 * @param candidates 候选节点, 初始时以第一个为主库
+	 */
+	public FailoverSSDBStream(String[] names, SSDBStream[] candidates) {
+		if (candidates.length == 0)
+			throw new IllegalArgumentException("need at least one candidate");
+		if (names.length != candidates.length)
+			throw new IllegalArgumentException("names and candidates must be of the same length");
+		this.names = names;
+		this.candidates = candidates;
+	}
+
+	public Response req(Cmd cmd, byte[]... vals) {
+		int index = current.get();
+		try {
+			return candidates[index].req(cmd, vals);
+		} catch (RuntimeException e) {
+			probeAsync();
+			throw e;
+		}
+	}
+
+	public void callback(SSDBStreamCallback callback) {
+		try {
+			candidates[current.get()].callback(callback);
+		} catch (RuntimeException e) {
+			probeAsync();
+			throw e;
+		}
+	}
+
+	/**
+	 * 每隔period毫秒在后台探测一次
+	 */
+	public void monitor(long period) {
+		if (monitor != null)
+			monitor.cancel(false);
+		monitor = prober().scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				probe();
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 在后台立即探测一次, 已有探测在进行或排队时什么都不做, 故障期间大量失败的请求只会触发一次探测
+	 */
+	public void probeAsync() {
+		if (!probing.compareAndSet(false, true))
+			return;
+		try {
+			prober().execute(new Runnable() {
+				public void run() {
+					try {
+						doProbe();
+					} finally {
+						probing.set(false);
+					}
+				}
+			});
+		} catch (RuntimeException e) {
+			probing.set(false);
+			throw e;
+		}
+	}
+
+	/**
+	 * 探测所有候选节点, 必要时切换主库. 当前主库可达且仍可写时不切换;
+	 * 否则在可写的节点中选binlog序号最大者, 没有可写节点时保持不变
+	 * @return 探测后的主库序号
+	 */
+	public int probe() {
+		if (!probing.compareAndSet(false, true))
+			return current.get();
+		try {
+			return doProbe();
+		} finally {
+			probing.set(false);
+		}
+	}
+
+	/**
+	 * 实际的探测, 调用方须已占住probing
+	 */
+	protected int doProbe() {
+		int old = current.get();
+		ReplicationInfo info = info(old);
+		if (info != null && info.isMaster())
+			return old;
+		int best = -1;
+		long bestSeq = Long.MIN_VALUE;
+		for (int i = 0; i < candidates.length; i++) {
+			if (i == old)
+				continue;
+			ReplicationInfo other = info(i);
+			if (other != null && other.isMaster() && other.getMaxSeq() > bestSeq) {
+				best = i;
+				bestSeq = other.getMaxSeq();
+			}
+		}
+		if (best < 0)
+			return old;
+		if (current.compareAndSet(old, best))
+			LOG.info("ssdb master switch from " + names[old] + " to " + names[best]);
+		return current.get();
+	}
+
+	/**
+	 * 探测用的线程, 与复制落后量采样分开, 探测不可达的节点时阻塞不会影响采样
+	 */
+	protected static synchronized ScheduledExecutorService prober() {
+		if (prober == null) {
+			ScheduledThreadPoolExecutor es = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "ssdb4j-failover");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			es.setRemoveOnCancelPolicy(true);
+			prober = es;
+		}
+		return prober;
+	}
+
+	protected ReplicationInfo info(int index) {
+		try {
+			Response resp = candidates[index].req(Cmd.info);
+			return resp.ok() ? ReplicationInfo.parse(resp) : null;
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 当前主库的名称
+	 */
+	public String getMaster() {
+		return names[current.get()];
+	}
+
+	public void close() throws IOException {
+		if (monitor != null)
+			monitor.cancel(false);
+		IOException error = null;
+		for (SSDBStream candidate : candidates) {
+			try {
+				candidate.close();
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+		if (error != null)
+			throw error;
+	}
+}
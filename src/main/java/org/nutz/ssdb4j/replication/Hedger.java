@@ -0,0 +1,128 @@
+package org.nutz.ssdb4j.replication;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 对冲读的参数和状态.
+ * <p></p>记录最近WINDOW次读请求的延迟, 每隔REFRESH个样本重新计算一次指定分位数作为对冲等待时间;
+ * 对冲请求数不超过读请求数的maxRate倍, 样本不足MIN_SAMPLES个时不对冲
+ */
+public class Hedger {
+
+	static final int WINDOW = 1024;
+	static final int REFRESH = 128;
+	static final int MIN_SAMPLES = 100;
+
+	protected final double percentile;
+	protected final double maxRate;
+	protected final long minDelayNanos;
+	protected final ExecutorService executor;
+	protected final boolean ownExecutor;
+
+	protected final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+	protected final AtomicLong count = new AtomicLong();
+	protected volatile long delayNanos = Long.MAX_VALUE;
+
+	protected final AtomicLong reads = new AtomicLong();
+	protected final AtomicLong hedges = new AtomicLong();
+	protected final AtomicLong wins = new AtomicLong();
+
+	/**
+	 * @param percentile 对冲等待时间取最近延迟的哪个分位, 如0.95
+	 * @param maxRate 对冲请求占读请求的最大比例, 如0.05
+	 * @param minDelayNanos 对冲等待时间的下限
+	 * @param executor 执行读请求的线程池, 为空时使用内部的守护线程池
+	 */
+	public Hedger(double percentile, double maxRate, long minDelayNanos, ExecutorService executor) {
+		this.percentile = percentile;
+		this.maxRate = maxRate;
+		this.minDelayNanos = minDelayNanos;
+		this.ownExecutor = executor == null;
+		this.executor = executor == null ? Executors.newCachedThreadPool(new ThreadFactory() {
+			AtomicInteger index = new AtomicInteger();
+
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "ssdb4j-hedge-" + index.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		}) : executor;
+	}
+
+	/**
+	 * 记录一次首选目标的延迟
+	 */
+	public void record(long nanos) {
+		// long计数, 避免2^31次后变为负数而不再刷新
+		long n = count.getAndIncrement();
+		samples.set((int) (n & (WINDOW - 1)), nanos);
+		if (n + 1 >= MIN_SAMPLES && (n + 1) % REFRESH == 0)
+			refresh((int) Math.min(n + 1, WINDOW));
+	}
+
+	protected void refresh(int size) {
+		long[] tmp = new long[size];
+		for (int i = 0; i < size; i++)
+			tmp[i] = samples.get(i);
+		Arrays.sort(tmp);
+		int index = Math.min(size - 1, (int) Math.ceil(size * percentile) - 1);
+		delayNanos = Math.max(minDelayNanos, tmp[Math.max(0, index)]);
+	}
+
+	/**
+	 * 当前的对冲等待时间, 样本不足时为Long.MAX_VALUE
+	 */
+	public long getDelayNanos() {
+		return delayNanos;
+	}
+
+	/**
+	 * 记录一次读请求
+	 */
+	public void read() {
+		reads.incrementAndGet();
+	}
+
+	/**
+	 * 是否还能发出一次对冲请求, 允许时计入对冲次数
+	 */
+	public boolean tryHedge() {
+		long h = hedges.get();
+		if (h + 1 > reads.get() * maxRate)
+			return false;
+		return hedges.compareAndSet(h, h + 1);
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	public long getReads() {
+		return reads.get();
+	}
+
+	public long getHedges() {
+		return hedges.get();
+	}
+
+	/**
+	 * 对冲请求先于首选目标返回的次数
+	 */
+	public long getWins() {
+		return wins.get();
+	}
+
+	/**
+	 * 关闭内部创建的线程池, 外部传入的线程池由调用方负责关闭
+	 */
+	public void close() {
+		if (ownExecutor)
+			executor.shutdown();
+	}
+}
@@ -0,0 +1,15 @@
+package org.nutz.ssdb4j.replication;
+
+/**
+ * 从多个从库中选出一个处理读请求
+ *
+ */
+public interface LoadBalancer {
+
+	/**
+	 * @param replicas 全部从库, 实现需跳过isAvailable(maxLag)为false的从库
+	 * @param maxLag 允许的复制落后量, 负数表示不限
+	 * @return 选中的从库, 没有可用的从库时返回null
+	 */
+	Replica select(Replica[] replicas, long maxLag);
+}
@@ -0,0 +1,88 @@
+package org.nutz.ssdb4j.replication;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 常用的负载均衡策略
+ *
+ */
+public class LoadBalancers {
+
+	/**
+	 * 轮询, 跳过被摘除的从库时继续取下一个序号, 使其份额均摊到其余从库
+	 */
+	public static LoadBalancer roundRobin() {
+		return new LoadBalancer() {
+			AtomicInteger next = new AtomicInteger();
+
+			public Replica select(Replica[] replicas, long maxLag) {
+				int n = replicas.length;
+				for (int i = 0; i < n; i++) {
+					Replica replica = replicas[(next.getAndIncrement() & Integer.MAX_VALUE) % n];
+					if (replica.isAvailable(maxLag))
+						return replica;
+				}
+				return null;
+			}
+		};
+	}
+
+	/**
+	 * 进行中的请求数最少者优先, 相同时随机选择
+	 */
+	public static LoadBalancer leastOutstanding() {
+		return new LoadBalancer() {
+			public Replica select(Replica[] replicas, long maxLag) {
+				Replica best = null;
+				int min = Integer.MAX_VALUE;
+				int ties = 0;
+				for (Replica replica : replicas) {
+					if (!replica.isAvailable(maxLag))
+						continue;
+					int outstanding = replica.getOutstanding();
+					if (outstanding < min) {
+						best = replica;
+						min = outstanding;
+						ties = 1;
+					} else if (outstanding == min && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+						best = replica;
+					}
+				}
+				return best;
+			}
+		};
+	}
+
+	/**
+	 * 按延迟的指数加权平均值乘以(进行中的请求数+1)打分, 随机取两个可用从库, 选分数低的.
+	 * 只比较两个而不是取全局最低, 避免所有请求涌向同一个从库, 较慢的从库也能持续得到新样本
+	 */
+	public static LoadBalancer ewma() {
+		return new LoadBalancer() {
+			public Replica select(Replica[] replicas, long maxLag) {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				int n = replicas.length;
+				Replica a = null;
+				Replica b = null;
+				int start = random.nextInt(n);
+				for (int i = 0; i < n && b == null; i++) {
+					Replica replica = replicas[(start + i) % n];
+					if (!replica.isAvailable(maxLag))
+						continue;
+					if (a == null)
+						a = replica;
+					else if (random.nextInt(n - i) == 0 || i == n - 1)
+						b = replica;
+				}
+				if (b == null)
+					return a;
+				return score(a) <= score(b) ? a : b;
+			}
+
+			double score(Replica replica) {
+				return replica.getEwma() * (replica.getOutstanding() + 1);
+			}
+		};
+	}
+}
@@ -0,0 +1,143 @@
+package org.nutz.ssdb4j.replication;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.Response;
+import org.nutz.ssdb4j.spi.SSDBStream;
+
+/**
+ * 一个从库, 记录进行中的请求数、延迟的指数加权平均值和连续失败次数.
+ * <p></p>连续失败maxFailures次后被摘除一段时间, 到期后重新参与选择, 再次失败则摘除时间加倍
+ */
+public class Replica {
+
+	/** 延迟平均值的平滑系数 */
+	static final double ALPHA = 0.2;
+
+	protected final String name;
+	protected final SSDBStream stream;
+
+	protected final AtomicInteger outstanding = new AtomicInteger();
+	protected final AtomicInteger failures = new AtomicInteger();
+	protected volatile double ewma;
+	protected volatile int ejections;
+	protected volatile long ejectedUntil;
+	protected volatile long lag;
+
+	protected int maxFailures = 3;
+	protected long ejectMillis = 1000;
+	protected long maxEjectMillis = 30000;
+
+	public Replica(String name, SSDBStream stream) {
+		this.name = name;
+		this.stream = stream;
+	}
+
+	public Response req(Cmd cmd, byte[]... vals) {
+		outstanding.incrementAndGet();
+		long start = System.nanoTime();
+		try {
+			Response resp = stream.req(cmd, vals);
+			success(System.nanoTime() - start);
+			return resp;
+		} catch (RuntimeException e) {
+			failure();
+			throw e;
+		} finally {
+			outstanding.decrementAndGet();
+		}
+	}
+
+	protected void success(long nanos) {
+		// 并发更新时可能丢失个别样本,对平均值影响可以忽略
+		double old = ewma;
+		ewma = old == 0 ? nanos : old + ALPHA * (nanos - old);
+		if (failures.get() != 0)
+			failures.set(0);
+		if (ejections != 0)
+			ejections = 0;
+	}
+
+	protected void failure() {
+		if (failures.incrementAndGet() < maxFailures)
+			return;
+		failures.set(0);
+		eject();
+	}
+
+	/**
+	 * 摘除一段时间, 时长随连续摘除次数加倍
+	 */
+	public void eject() {
+		int n = ejections;
+		ejections = n + 1;
+		long millis = Math.min(maxEjectMillis, ejectMillis << Math.min(n, 20));
+		ejectedUntil = System.currentTimeMillis() + millis;
+	}
+
+	public boolean isAvailable() {
+		return ejectedUntil <= System.currentTimeMillis();
+	}
+
+	/**
+	 * 未被摘除且复制落后量不超过maxLag
+	 * @param maxLag 允许落后的binlog条数, 负数表示不限
+	 */
+	public boolean isAvailable(long maxLag) {
+		return (maxLag < 0 || lag <= maxLag) && isAvailable();
+	}
+
+	/**
+	 * 最近一次采样得到的复制落后量, 单位为binlog条数, 未同步或采样失败时为Long.MAX_VALUE
+	 */
+	public long getLag() {
+		return lag;
+	}
+
+	public void setLag(long lag) {
+		this.lag = lag;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public SSDBStream getStream() {
+		return stream;
+	}
+
+	/**
+	 * 正在进行中的请求数
+	 */
+	public int getOutstanding() {
+		return outstanding.get();
+	}
+
+	/**
+	 * 延迟的指数加权平均值,单位纳秒,尚无样本时为0
+	 */
+	public double getEwma() {
+		return ewma;
+	}
+
+	/**
+	 * @param maxFailures 连续失败多少次后摘除
+	 * @param ejectMillis 首次摘除的时长
+	 * @param maxEjectMillis 最长摘除时长
+	 */
+	public void setEjection(int maxFailures, long ejectMillis, long maxEjectMillis) {
+		this.maxFailures = maxFailures;
+		this.ejectMillis = ejectMillis;
+		this.maxEjectMillis = maxEjectMillis;
+	}
+
+	public void close() throws IOException {
+		stream.close();
+	}
+
+	public String toString() {
+		return name;
+	}
+}
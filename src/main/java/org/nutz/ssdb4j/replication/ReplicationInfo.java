@@ -0,0 +1,137 @@
+package org.nutz.ssdb4j.replication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.nutz.ssdb4j.spi.Response;
+
+/**
+ * info命令中与复制相关的部分
+ * <p></p>binlogs块给出本机最新的max_seq, 每个"slaveof host:port"块给出本机作为从库时同步到的last_seq
+ */
+public class ReplicationInfo {
+
+	protected long maxSeq = -1;
+	protected List<Link> slaveof = new ArrayList<Link>();
+	protected int clients;
+
+	/**
+	 * 解析info的响应
+	 */
+	public static ReplicationInfo parse(Response resp) {
+		ReplicationInfo info = new ReplicationInfo();
+		List<String> list = resp.listString();
+		// 第一项为单独的"ssdb-server",其后才是键值对
+		for (int i = list.size() % 2; i + 1 < list.size(); i += 2) {
+			String key = list.get(i).trim();
+			String value = list.get(i + 1);
+			if ("binlogs".equals(key)) {
+				String seq = field(value, "max_seq");
+				if (seq != null)
+					info.maxSeq = Long.parseLong(seq);
+			} else if ("replication".equals(key)) {
+				String head = value.trim();
+				int index = head.indexOf('\n');
+				if (index > 0)
+					head = head.substring(0, index).trim();
+				if (head.startsWith("slaveof ")) {
+					Link link = new Link();
+					link.address = head.substring("slaveof ".length()).trim();
+					link.type = field(value, "type");
+					link.status = field(value, "status");
+					String seq = field(value, "last_seq");
+					link.lastSeq = seq == null ? -1 : Long.parseLong(seq);
+					info.slaveof.add(link);
+				} else if (head.startsWith("client ")) {
+					info.clients++;
+				}
+			}
+		}
+		return info;
+	}
+
+	/**
+	 * 从"name : value"形式的多行文本中取出指定字段
+	 */
+	protected static String field(String text, String name) {
+		for (String line : text.split("\n")) {
+			int index = line.indexOf(':');
+			if (index > 0 && line.substring(0, index).trim().equals(name))
+				return line.substring(index + 1).trim();
+		}
+		return null;
+	}
+
+	/**
+	 * 本机binlog的最大序号, 未知时为-1
+	 */
+	public long getMaxSeq() {
+		return maxSeq;
+	}
+
+	/**
+	 * 本机作为从库时的同步信息
+	 */
+	public List<Link> getSlaveof() {
+		return slaveof;
+	}
+
+	/**
+	 * 连接到本机的从库数量
+	 */
+	public int getClients() {
+		return clients;
+	}
+
+	/**
+	 * 是否为可写的主库, 即没有以sync方式同步其他节点. mirror方式是双向的, 两端都可写
+	 */
+	public boolean isMaster() {
+		for (Link link : slaveof)
+			if (!"mirror".equals(link.type))
+				return false;
+		return true;
+	}
+
+	/**
+	 * 相对于给定主库max_seq的落后量, 没有sync链路或同步状态不是SYNC时返回Long.MAX_VALUE.
+	 * mirror链路的last_seq属于对端的序号, 无法与masterSeq比较, 不参与计算
+	 */
+	public long lag(long masterSeq) {
+		long lag = -1;
+		for (Link link : slaveof) {
+			if ("mirror".equals(link.type))
+				continue;
+			if (!"SYNC".equals(link.status) || link.lastSeq < 0)
+				return Long.MAX_VALUE;
+			lag = Math.max(lag, Math.max(0, masterSeq - link.lastSeq));
+		}
+		return lag < 0 ? Long.MAX_VALUE : lag;
+	}
+
+	/**
+	 * 一条复制链路
+	 */
+	public static class Link {
+		protected String address;
+		protected String type;
+		protected String status;
+		protected long lastSeq;
+
+		public String getAddress() {
+			return address;
+		}
+
+		public String getType() {
+			return type;
+		}
+
+		public String getStatus() {
+			return status;
+		}
+
+		public long getLastSeq() {
+			return lastSeq;
+		}
+	}
+}
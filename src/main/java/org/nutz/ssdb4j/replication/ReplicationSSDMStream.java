@@ -1,38 +1,350 @@
 package org.nutz.ssdb4j.replication;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.ReadOnlyStreamCallback;
 import org.nutz.ssdb4j.spi.Response;
+import org.nutz.ssdb4j.spi.SSDBException;
 import org.nutz.ssdb4j.spi.SSDBStream;
 import org.nutz.ssdb4j.spi.SSDBStreamCallback;
 
+/**
+ * 一主多从, 可在从库执行的读请求由LoadBalancer分配到从库, 其余请求发往主库.
+ * <p></p>从库出错时该请求改由主库执行, 连续出错的从库会被暂时摘除, 没有可用从库时全部请求发往主库.
+ * <p></p>调用monitorLag后定期用info采样各从库的复制落后量, 落后超过maxLag的从库不再接收读请求.
+ * withMaxLag可为不同的调用方生成共享连接但落后容忍度不同的视图.
+ * <p></p>设置Hedger后, 读请求若在最近延迟的指定分位数内未返回, 会再向另一个从库(没有则主库)发出同样的请求, 取先返回者
+ * <p></p>session生成读己之写的会话视图, 会话内写入后的一段时间内, 相关读请求固定发往主库
+ */
 public class ReplicationSSDMStream implements SSDBStream {
 
+	private static ScheduledExecutorService scheduler;
+
 	protected SSDBStream master;
 	
 	protected SSDBStream slave;
 	
+	protected Replica[] replicas;
+	
+	protected LoadBalancer balancer;
+	
+	/** 允许的复制落后量, 单位为binlog条数, 负数表示不限 */
+	protected long maxLag = -1;
+	
+	protected ScheduledFuture<?> monitor;
+	
+	protected Hedger hedger;
+	
+	protected Session session;
+	
+	/** 由withMaxLag生成的视图不拥有连接, 关闭时什么都不做 */
+	protected boolean view;
+	
 	public ReplicationSSDMStream(SSDBStream master, SSDBStream slave) {
+		this(master, new Replica[]{new Replica("slave", slave)}, LoadBalancers.roundRobin());
+	}
+	
+	public ReplicationSSDMStream(SSDBStream master, List<SSDBStream> slaves, LoadBalancer balancer) {
+		this(master, replicas(slaves), balancer);
+	}
+	
+	public ReplicationSSDMStream(SSDBStream master, Replica[] replicas, LoadBalancer balancer) {
 		this.master = master;
-		this.slave = slave;
+		this.replicas = replicas;
+		this.balancer = balancer == null ? LoadBalancers.roundRobin() : balancer;
+		this.slave = replicas.length > 0 ? replicas[0].getStream() : null;
+	}
+	
+	protected static Replica[] replicas(List<SSDBStream> slaves) {
+		Replica[] replicas = new Replica[slaves.size()];
+		for (int i = 0; i < replicas.length; i++)
+			replicas[i] = new Replica("slave-" + i, slaves.get(i));
+		return replicas;
 	}
 
 	public Response req(Cmd cmd, byte[]... vals) {
-		if (cmd.isSlave())
-			return slave.req(cmd, vals);
+		Session session = this.session;
+		if (cmd.isSlave() && replicas.length > 0 && (session == null || !session.pinned(cmd, vals))) {
+			Replica replica = balancer.select(replicas, maxLag);
+			if (replica != null) {
+				if (hedger != null)
+					return hedge(replica, cmd, vals);
+				try {
+					return replica.req(cmd, vals);
+				} catch (RuntimeException e) {
+					// 读请求改由主库执行
+				}
+			}
+		}
+		if (session == null || !Session.isWrite(cmd))
+			return master.req(cmd, vals);
+		try {
+			return master.req(cmd, vals);
+		} finally {
+			// 出错时写入也可能已经生效, 同样记录
+			session.write(cmd, vals);
+		}
+	}
+
+	/**
+	 * 在线程池中向首选从库发出读请求, 超过对冲等待时间仍未返回且未超出对冲比例时, 再向另一个目标发出同样的请求.
+	 * 落后的请求无法中止, 会在后台执行完毕. 所有目标都失败时改由主库执行
+	 */
+	protected Response hedge(final Replica primary, final Cmd cmd, final byte[]... vals) {
+		final Hedger hedger = this.hedger;
+		final CompletableFuture<Response> result = new CompletableFuture<Response>();
+		final AtomicInteger running = new AtomicInteger(1);
+		final long start = System.nanoTime();
+		try {
+			hedger.getExecutor().execute(new Runnable() {
+				public void run() {
+					try {
+						Response resp = primary.req(cmd, vals);
+						hedger.record(System.nanoTime() - start);
+						result.complete(resp);
+					} catch (Throwable e) {
+						if (running.decrementAndGet() == 0)
+							result.completeExceptionally(e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// 线程池已关闭(如视图的父连接已关闭), 不对冲, 直接执行
+			try {
+				return primary.req(cmd, vals);
+			} catch (RuntimeException e1) {
+				return master.req(cmd, vals);
+			}
+		}
+		hedger.read();
+		boolean hedgedToMaster = false;
+		try {
+			try {
+				return result.get(hedger.getDelayNanos(), TimeUnit.NANOSECONDS);
+			} catch (TimeoutException e) {
+				// 先占住计数再判断, 首选目标恰在此时失败也不会让结果提前以异常结束, 已结束时不再对冲
+				running.incrementAndGet();
+				if (!result.isDone() && hedger.tryHedge()) {
+					final Replica other = another(primary);
+					try {
+						hedger.getExecutor().execute(new Runnable() {
+							public void run() {
+								try {
+									Response resp = other == null ? master.req(cmd, vals) : other.req(cmd, vals);
+									if (result.complete(resp))
+										hedger.wins.incrementAndGet();
+								} catch (Throwable e) {
+									if (running.decrementAndGet() == 0)
+										result.completeExceptionally(e);
+								}
+							}
+						});
+						hedgedToMaster = other == null;
+					} catch (RejectedExecutionException e1) {
+						// 线程池已关闭, 放弃对冲, 只等首选目标
+						if (running.decrementAndGet() == 0)
+							result.completeExceptionally(e1);
+					}
+				} else if (running.decrementAndGet() == 0) {
+					// 首选目标已失败且不再对冲
+					result.completeExceptionally(new SSDBException("hedge skipped"));
+				}
+				return result.get();
+			}
+		} catch (ExecutionException e) {
+			// 读请求改由主库执行, 对冲请求已发往主库并失败时不再重复
+			if (hedgedToMaster)
+				throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new SSDBException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SSDBException(e);
+		}
 		return master.req(cmd, vals);
 	}
+	
+	/**
+	 * 选出首选以外的一个可用从库, 没有时返回null表示使用主库
+	 */
+	protected Replica another(Replica primary) {
+		// 负载均衡策略可能反复选中同一个从库, 所以直接从首选之后依次找
+		int from = 0;
+		for (int i = 0; i < replicas.length; i++)
+			if (replicas[i] == primary)
+				from = i;
+		for (int i = 1; i < replicas.length; i++) {
+			Replica replica = replicas[(from + i) % replicas.length];
+			if (replica.isAvailable(maxLag))
+				return replica;
+		}
+		return null;
+	}
 
 	public void callback(SSDBStreamCallback callback) {
-		master.callback(callback);
+		Session session = this.session;
+		try {
+			master.callback(callback);
+		} finally {
+			// 只读的流式读取不算写入, 其余回调如batch无法判断写了哪些键
+			if (session != null && !(callback instanceof ReadOnlyStreamCallback))
+				session.write();
+		}
+	}
+	
+	public Replica[] getReplicas() {
+		return replicas;
+	}
+	
+	/**
+	 * @param maxLag 允许的复制落后量, 单位为binlog条数, 负数表示不限. 需配合monitorLag使用
+	 */
+	public void setMaxLag(long maxLag) {
+		this.maxLag = maxLag;
+	}
+	
+	public long getMaxLag() {
+		return maxLag;
+	}
+	
+	/**
+	 * 生成一个共享主从连接和采样结果, 但使用不同落后容忍度的视图. 关闭视图不会关闭连接
+	 * @param maxLag 允许的复制落后量, 0表示只读完全同步的从库
+	 */
+	public ReplicationSSDMStream withMaxLag(long maxLag) {
+		ReplicationSSDMStream stream = view();
+		stream.maxLag = maxLag;
+		return stream;
+	}
+	
+	/**
+	 * 生成一个读己之写的会话视图, 共享全部连接, 关闭视图不会关闭连接. 通常每个用户会话或请求链路生成一个
+	 * @param windowMillis 写入后读请求固定发往主库的时长, 单位毫秒, 应大于正常的复制延迟
+	 * @param perKey 为true时只固定读取写过的键的请求, 为false时会话内任意写入后的全部读请求都发往主库
+	 */
+	public ReplicationSSDMStream session(long windowMillis, boolean perKey) {
+		ReplicationSSDMStream stream = view();
+		stream.session = new Session(windowMillis, perKey);
+		return stream;
+	}
+	
+	public Session getSession() {
+		return session;
+	}
+	
+	/**
+	 * 生成共享全部连接和状态的视图, 子类可覆盖以复制更多字段
+	 */
+	protected ReplicationSSDMStream view() {
+		ReplicationSSDMStream stream = new ReplicationSSDMStream(master, replicas, balancer);
+		stream.maxLag = maxLag;
+		stream.hedger = hedger;
+		stream.session = session;
+		stream.view = true;
+		return stream;
+	}
+	
+	/**
+	 * 启用对冲读, 为空则关闭
+	 */
+	public void setHedger(Hedger hedger) {
+		this.hedger = hedger;
+	}
+	
+	/**
+	 * 启用对冲读, 使用内部线程池, 对冲等待时间下限为1毫秒
+	 * @param percentile 对冲等待时间取最近延迟的哪个分位, 如0.95
+	 * @param maxRate 对冲请求占读请求的最大比例, 如0.05
+	 */
+	public void hedge(double percentile, double maxRate) {
+		setHedger(new Hedger(percentile, maxRate, TimeUnit.MILLISECONDS.toNanos(1), null));
+	}
+	
+	public Hedger getHedger() {
+		return hedger;
+	}
+	
+	/**
+	 * 每隔period毫秒在后台采样一次主库的max_seq和各从库的last_seq
+	 */
+	public void monitorLag(long period) {
+		if (monitor != null)
+			monitor.cancel(false);
+		monitor = scheduler().scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				sampleLag();
+			}
+		}, 0, period, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * 立即采样一次复制落后量. 主库采样失败时保留上次结果, 从库采样失败时视为落后无穷大
+	 */
+	public void sampleLag() {
+		long masterSeq;
+		try {
+			masterSeq = ReplicationInfo.parse(master.req(Cmd.info).check()).getMaxSeq();
+		} catch (RuntimeException e) {
+			return;
+		}
+		if (masterSeq < 0)
+			return;
+		for (Replica replica : replicas) {
+			long lag;
+			try {
+				lag = ReplicationInfo.parse(replica.getStream().req(Cmd.info).check()).lag(masterSeq);
+			} catch (RuntimeException e) {
+				lag = Long.MAX_VALUE;
+			}
+			replica.setLag(lag);
+		}
+	}
+	
+	protected static synchronized ScheduledExecutorService scheduler() {
+		if (scheduler == null) {
+			ScheduledThreadPoolExecutor es = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "ssdb4j-replication");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			es.setRemoveOnCancelPolicy(true);
+			scheduler = es;
+		}
+		return scheduler;
 	}
 	
 	public void close() throws IOException {
+		if (view)
+			return;
+		if (monitor != null)
+			monitor.cancel(false);
+		if (hedger != null)
+			hedger.close();
 		try {
 			master.close();
 		} finally {
-			slave.close();
+			IOException error = null;
+			for (Replica replica : replicas) {
+				try {
+					replica.close();
+				} catch (IOException e) {
+					error = e;
+				}
+			}
+			if (error != null)
+				throw error;
 		}
 	}
 }
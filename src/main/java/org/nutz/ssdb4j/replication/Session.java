@@ -0,0 +1,151 @@
+package org.nutz.ssdb4j.replication;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.nutz.ssdb4j.spi.Cmd;
+
+/**
+ * 读己之写的会话状态. 会话中写入之后的一段时间内, 相关的读请求固定发往主库, 以免读到尚未同步的从库.
+ * <p></p>按键模式只固定读取了最近写过的键的请求, 其余读请求照常发往从库; 否则会话内任意写之后的全部读请求都发往主库.
+ * 按键模式下范围类读请求(scan, keys, hlist等)无法判断涉及哪些键, 只要窗口内有过写就发往主库
+ */
+public class Session {
+
+	/** 按键模式下每写入这么多次清理一次过期的键 */
+	protected static final int SWEEP = 1024;
+
+	/** 修改数据的命令, 其余命令都视为读 */
+	protected static final Set<Cmd> WRITES = new HashSet<Cmd>(Arrays.asList(
+			Cmd.set, Cmd.setx, Cmd.setnx, Cmd.getset, Cmd.del, Cmd.incr, Cmd.decr, Cmd.expire, Cmd.setbit,
+			Cmd.multi_set, Cmd.multi_del,
+			Cmd.hset, Cmd.hdel, Cmd.hincr, Cmd.hdecr, Cmd.hclear, Cmd.multi_hset, Cmd.multi_hdel,
+			Cmd.zset, Cmd.zdel, Cmd.zincr, Cmd.zdecr, Cmd.zclear, Cmd.zpopfront, Cmd.zpopback,
+			Cmd.zremrangebyrank, Cmd.zremrangebyscore, Cmd.multi_zset, Cmd.multi_zdel,
+			Cmd.qpush, Cmd.qpush_front, Cmd.qpush_back, Cmd.qpop, Cmd.qpop_front, Cmd.qpop_back,
+			Cmd.qtrim_front, Cmd.qtrim_back, Cmd.qset, Cmd.qclear, Cmd.qfix,
+			Cmd.flushdb, Cmd.eval, Cmd.evalsha));
+
+	protected final long windowNanos;
+	protected final boolean perKey;
+	protected final ConcurrentMap<ByteBuffer, Long> keys;
+	protected final AtomicInteger writes = new AtomicInteger();
+	protected volatile long lastWrite;
+	protected volatile long lastUnknown;
+	protected volatile boolean written;
+	protected volatile boolean unknown;
+
+	/**
+	 * @param windowMillis 写入后读请求固定发往主库的时长, 单位毫秒, 应大于正常的复制延迟
+	 * @param perKey 是否只固定写过的键
+	 */
+	public Session(long windowMillis, boolean perKey) {
+		this.windowNanos = windowMillis * 1000000L;
+		this.perKey = perKey;
+		this.keys = perKey ? new ConcurrentHashMap<ByteBuffer, Long>() : null;
+	}
+
+	/**
+	 * 记录一次无法判断涉及哪些键的写入, 如batch等非只读的回调, 此后窗口内全部读请求都发往主库
+	 */
+	public void write() {
+		long now = System.nanoTime();
+		lastWrite = now;
+		lastUnknown = now;
+		written = true;
+		unknown = true;
+	}
+
+	/**
+	 * 记录一次发往主库的请求, 不在写命令集合中的命令被忽略
+	 */
+	public void write(Cmd cmd, byte[]... vals) {
+		if (!isWrite(cmd))
+			return;
+		if (vals.length == 0 || cmd == Cmd.flushdb || cmd == Cmd.eval || cmd == Cmd.evalsha) {
+			// 无法判断涉及哪些键
+			write();
+			return;
+		}
+		long now = System.nanoTime();
+		lastWrite = now;
+		written = true;
+		if (!perKey)
+			return;
+		if (cmd == Cmd.multi_set) {
+			for (int i = 0; i < vals.length; i += 2)
+				keys.put(ByteBuffer.wrap(vals[i]), now);
+		} else if (cmd == Cmd.multi_del) {
+			for (byte[] key : vals)
+				keys.put(ByteBuffer.wrap(key), now);
+		} else {
+			// 其余写命令的第一个参数为键或hash/zset/queue的名字
+			keys.put(ByteBuffer.wrap(vals[0]), now);
+		}
+		if (writes.incrementAndGet() % SWEEP == 0)
+			sweep(now);
+	}
+
+	/**
+	 * 该读请求是否应发往主库
+	 */
+	public boolean pinned(Cmd cmd, byte[]... vals) {
+		if (!written)
+			return false;
+		long now = System.nanoTime();
+		if (now - lastWrite >= windowNanos)
+			return false;
+		if (!perKey || vals.length == 0 || isRange(cmd))
+			return true;
+		if (unknown && now - lastUnknown < windowNanos)
+			return true;
+		if (cmd == Cmd.multi_get || cmd == Cmd.multi_exists || cmd == Cmd.multi_hsize || cmd == Cmd.multi_zsize) {
+			for (byte[] key : vals)
+				if (recent(key, now))
+					return true;
+			return false;
+		}
+		return recent(vals[0], now);
+	}
+
+	protected boolean recent(byte[] key, long now) {
+		Long time = keys.get(ByteBuffer.wrap(key));
+		return time != null && now - time < windowNanos;
+	}
+
+	protected static boolean isRange(Cmd cmd) {
+		return cmd == Cmd.scan || cmd == Cmd.rscan || cmd == Cmd.keys || cmd == Cmd.rkeys
+				|| cmd == Cmd.hlist || cmd == Cmd.hrlist || cmd == Cmd.zlist || cmd == Cmd.zrlist
+				|| cmd == Cmd.qlist || cmd == Cmd.qrlist;
+	}
+
+	/**
+	 * 是否为修改数据的命令
+	 */
+	public static boolean isWrite(Cmd cmd) {
+		return WRITES.contains(cmd);
+	}
+
+	protected void sweep(long now) {
+		Iterator<Entry<ByteBuffer, Long>> it = keys.entrySet().iterator();
+		while (it.hasNext()) {
+			if (now - it.next().getValue() >= windowNanos)
+				it.remove();
+		}
+	}
+
+	public long getWindowMillis() {
+		return windowNanos / 1000000L;
+	}
+
+	public boolean isPerKey() {
+		return perKey;
+	}
+}
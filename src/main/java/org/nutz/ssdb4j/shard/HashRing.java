@@ -0,0 +1,171 @@
+package org.nutz.ssdb4j.shard;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.nutz.ssdb4j.spi.SSDBStream;
+
+/**
+ * 带虚拟节点的一致性哈希环, 创建后不可修改, 增删节点时生成新的环.
+ * <p></p>每个节点在环上占virtualNodes个点, 增加一个节点时只有约1/(n+1)的键改变归属.
+ * 启用hash tag时, 键中第一对{}之间的内容非空则只对这部分求哈希, 可让相关的键落在同一分片上
+ */
+public class HashRing {
+
+	public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+	protected static final Charset UTF8 = Charset.forName("UTF-8");
+
+	protected final String[] names;
+	protected final SSDBStream[] shards;
+	protected final int virtualNodes;
+	protected final boolean hashTags;
+	protected final long[] points;
+	protected final int[] owners;
+
+	/**
+	 * @param names 节点名称, 决定节点在环上的位置, 应保持稳定, 通常为host:port
+	 * @param shards 各节点的连接
+	 * @param virtualNodes 每个节点的虚拟节点数
+	 * @param hashTags 是否启用hash tag
+	 */
+	public HashRing(String[] names, SSDBStream[] shards, int virtualNodes, boolean hashTags) {
+		if (names.length == 0 || names.length != shards.length)
+			throw new IllegalArgumentException("names and shards must be non-empty and of the same length");
+		this.names = names;
+		this.shards = shards;
+		this.virtualNodes = virtualNodes;
+		this.hashTags = hashTags;
+		TreeMap<Long, Integer> ring = new TreeMap<Long, Integer>();
+		for (int i = 0; i < names.length; i++) {
+			for (int j = 0; j < virtualNodes; j++) {
+				byte[] point = (names[i] + "#" + j).getBytes(UTF8);
+				ring.put(hash(point, 0, point.length), i);
+			}
+		}
+		this.points = new long[ring.size()];
+		this.owners = new int[ring.size()];
+		int index = 0;
+		for (Entry<Long, Integer> en : ring.entrySet()) {
+			points[index] = en.getKey();
+			owners[index++] = en.getValue();
+		}
+	}
+
+	/**
+	 * 键所属节点的序号
+	 */
+	public int index(byte[] key) {
+		int from = 0, to = key.length;
+		if (hashTags) {
+			int start = indexOf(key, (byte) '{', 0);
+			if (start >= 0) {
+				int end = indexOf(key, (byte) '}', start + 1);
+				if (end > start + 1) {
+					from = start + 1;
+					to = end;
+				}
+			}
+		}
+		int index = Arrays.binarySearch(points, hash(key, from, to - from));
+		if (index < 0)
+			index = -index - 1;
+		return owners[index == points.length ? 0 : index];
+	}
+
+	/**
+	 * 键所属节点的连接
+	 */
+	public SSDBStream locate(byte[] key) {
+		return shards[index(key)];
+	}
+
+	/**
+	 * 增加一个节点, 返回新的环
+	 */
+	public HashRing add(String name, SSDBStream shard) {
+		if (indexOf(name) >= 0)
+			throw new IllegalArgumentException("duplicate shard " + name);
+		String[] names = Arrays.copyOf(this.names, this.names.length + 1);
+		SSDBStream[] shards = Arrays.copyOf(this.shards, this.shards.length + 1);
+		names[names.length - 1] = name;
+		shards[shards.length - 1] = shard;
+		return new HashRing(names, shards, virtualNodes, hashTags);
+	}
+
+	/**
+	 * 移除一个节点, 返回新的环
+	 */
+	public HashRing remove(String name) {
+		int index = indexOf(name);
+		if (index < 0)
+			throw new IllegalArgumentException("no such shard " + name);
+		String[] names = new String[this.names.length - 1];
+		SSDBStream[] shards = new SSDBStream[names.length];
+		for (int i = 0, j = 0; i < this.names.length; i++) {
+			if (i == index)
+				continue;
+			names[j] = this.names[i];
+			shards[j++] = this.shards[i];
+		}
+		return new HashRing(names, shards, virtualNodes, hashTags);
+	}
+
+	public int indexOf(String name) {
+		for (int i = 0; i < names.length; i++)
+			if (names[i].equals(name))
+				return i;
+		return -1;
+	}
+
+	protected static int indexOf(byte[] data, byte b, int from) {
+		for (int i = from; i < data.length; i++)
+			if (data[i] == b)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * MurmurHash64A
+	 */
+	public static long hash(byte[] data, int off, int len) {
+		final long m = 0xc6a4a7935bd1e995L;
+		final int r = 47;
+		long h = 0x1234ABCDL ^ (len * m);
+		int end = off + (len & ~7);
+		for (int i = off; i < end; i += 8) {
+			long k = (data[i] & 0xffL) | (data[i + 1] & 0xffL) << 8 | (data[i + 2] & 0xffL) << 16
+					| (data[i + 3] & 0xffL) << 24 | (data[i + 4] & 0xffL) << 32 | (data[i + 5] & 0xffL) << 40
+					| (data[i + 6] & 0xffL) << 48 | (data[i + 7] & 0xffL) << 56;
+			k *= m;
+			k ^= k >>> r;
+			k *= m;
+			h ^= k;
+			h *= m;
+		}
+		int rest = len & 7;
+		if (rest > 0) {
+			for (int i = rest - 1; i >= 0; i--)
+				h ^= (data[end + i] & 0xffL) << (i * 8);
+			h *= m;
+		}
+		h ^= h >>> r;
+		h *= m;
+		h ^= h >>> r;
+		return h;
+	}
+
+	public String[] getNames() {
+		return names;
+	}
+
+	public SSDBStream[] getShards() {
+		return shards;
+	}
+
+	public int size() {
+		return names.length;
+	}
+}
@@ -0,0 +1,428 @@
+package org.nutz.ssdb4j.shard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+import org.nutz.ssdb4j.SSDBs;
+import org.nutz.ssdb4j.cursor.AdaptivePageSize;
+import org.nutz.ssdb4j.spi.Cmd;
+import org.nutz.ssdb4j.spi.Response;
+import org.nutz.ssdb4j.spi.SSDBException;
+import org.nutz.ssdb4j.spi.SSDBStream;
+import org.nutz.ssdb4j.spi.SSDBStreamCallback;
+
+/**
+ * 按一致性哈希把请求分配到多个节点, 每个节点可以是连接池, 也可以是ReplicationSSDMStream.
+ * <p></p>Cmd.isPartition()为true的命令按第一个参数路由; flushdb/compact/ping发往全部节点;
+ * multi_get/multi_set/multi_del/multi_exists/multi_zsize/multi_hsize按节点拆分后并行执行, 再按原来的键顺序合并为一个响应,
+ * 耗时取决于最慢的节点而不是各节点之和;
+ * scan/keys/hlist/zlist/qlist及其逆序版本在全部节点上并行执行, 按字节序归并, limit对合并后的结果生效;
+ * 其余命令会抛出SSDBException.
+ * 拆分后的写请求不是原子的, 某个节点出错时其他节点上的修改不会回滚
+ * <p></p>增删节点只替换哈希环, 不迁移数据, 改变归属的键需由使用者自行迁移
+ */
+public class ShardedSSDBStream implements SSDBStream {
+
+	private static ExecutorService executor;
+
+	protected volatile HashRing ring;
+
+	protected Executor scatter;
+
+	public ShardedSSDBStream(String[] names, SSDBStream[] shards) {
+		this(new HashRing(names, shards, HashRing.DEFAULT_VIRTUAL_NODES, true));
+	}
+
+	public ShardedSSDBStream(HashRing ring) {
+		this.ring = ring;
+	}
+
+	public Response req(Cmd cmd, byte[]... vals) {
+		HashRing ring = this.ring;
+		if (cmd.isPartition() && vals.length > 0)
+			return ring.locate(vals[0]).req(cmd, vals);
+		if (isBroadcast(cmd))
+			return broadcast(ring, cmd, vals);
+		int step = keyStep(cmd);
+		if (step > 0 && vals.length > 0)
+			return scatter(ring, cmd, step, vals);
+		if (isRange(cmd) && vals.length >= 3)
+			return merge(ring, cmd, vals);
+		throw new SSDBException("cmd " + cmd.getName() + " not supported by sharded stream");
+	}
+
+	/**
+	 * 发往全部节点, 返回第一个失败的响应, 都成功时返回最后一个
+	 */
+	protected Response broadcast(HashRing ring, Cmd cmd, byte[]... vals) {
+		Response last = null;
+		for (SSDBStream shard : ring.getShards()) {
+			last = shard.req(cmd, vals);
+			if (!last.ok())
+				return last;
+		}
+		return last;
+	}
+
+	/**
+	 * 按节点拆分多键命令并行执行, 调用线程执行其中一个子请求. 全部键落在同一节点时直接转发
+	 * @param step 参数中键的间隔
+	 */
+	protected Response scatter(HashRing ring, Cmd cmd, int step, byte[][] vals) {
+		int n = ring.size();
+		int[] owners = new int[vals.length / step];
+		int[] counts = new int[n];
+		int used = 0;
+		for (int i = 0; i < owners.length; i++) {
+			int index = ring.index(vals[i * step]);
+			owners[i] = index;
+			if (counts[index]++ == 0)
+				used++;
+		}
+		if (used == 1)
+			return ring.getShards()[owners[0]].req(cmd, vals);
+		byte[][][] parts = new byte[n][][];
+		int[] filled = new int[n];
+		for (int i = 0; i < owners.length; i++) {
+			int index = owners[i];
+			if (parts[index] == null)
+				parts[index] = new byte[counts[index] * step][];
+			System.arraycopy(vals, i * step, parts[index], filled[index], step);
+			filled[index] += step;
+		}
+		Executor executor = scatter == null ? executor() : scatter;
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		CompletableFuture<Response>[] futures = new CompletableFuture[n];
+		int last = -1;
+		for (int i = 0; i < n; i++) {
+			if (parts[i] == null)
+				continue;
+			if (last >= 0)
+				futures[last] = submit(ring.getShards()[last], cmd, parts[last], executor);
+			last = i;
+		}
+		Response[] resps = new Response[n];
+		RuntimeException error = null;
+		try {
+			resps[last] = ring.getShards()[last].req(cmd, parts[last]);
+		} catch (RuntimeException e) {
+			error = e;
+		}
+		for (int i = 0; i < n; i++) {
+			if (futures[i] == null)
+				continue;
+			try {
+				resps[i] = futures[i].join();
+			} catch (CompletionException e) {
+				if (error == null)
+					error = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new SSDBException(e.getCause());
+			}
+		}
+		if (error != null)
+			throw error;
+		for (Response resp : resps)
+			if (resp != null && !resp.ok())
+				return resp;
+		return gather(cmd, step, vals, resps);
+	}
+
+	protected static CompletableFuture<Response> submit(final SSDBStream shard, final Cmd cmd, final byte[][] vals, Executor executor) {
+		return CompletableFuture.supplyAsync(new Supplier<Response>() {
+			public Response get() {
+				return shard.req(cmd, vals);
+			}
+		}, executor);
+	}
+
+	/**
+	 * 合并各节点的响应. multi_set/multi_del的结果为数量, 求和; 其余为键值对, 按原来的键顺序排列
+	 */
+	protected static Response gather(Cmd cmd, int step, byte[][] vals, Response[] resps) {
+		Response resp = new Response();
+		resp.stat = "ok";
+		if (cmd == Cmd.multi_set || cmd == Cmd.multi_del) {
+			long sum = 0;
+			for (Response part : resps)
+				if (part != null && part.size() > 0)
+					sum += part.asLong();
+			resp.datas.add(Long.toString(sum).getBytes());
+			return resp;
+		}
+		Map<ByteBuffer, byte[]> values = new HashMap<ByteBuffer, byte[]>(vals.length * 2);
+		for (Response part : resps) {
+			if (part == null)
+				continue;
+			for (int i = 0; i + 1 < part.size(); i += 2)
+				values.put(ByteBuffer.wrap(part.get(i)), part.get(i + 1));
+		}
+		for (int i = 0; i < vals.length; i += step) {
+			byte[] value = values.get(ByteBuffer.wrap(vals[i]));
+			if (value != null) {
+				resp.datas.add(vals[i]);
+				resp.datas.add(value);
+			}
+		}
+		return resp;
+	}
+
+	/**
+	 * 在全部节点上并行执行范围命令, 按键的字节序k路归并, 取满limit条为止.
+	 * <p></p>首轮每个节点取limit/n的1.25倍, 之后某个节点的数据先用完时, 从它的最后一个键继续取,
+	 * 每次的条数由AdaptivePageSize按耗时增长, 且不超过还差的条数
+	 */
+	protected Response merge(HashRing ring, Cmd cmd, byte[][] vals) {
+		int limit;
+		try {
+			limit = Integer.parseInt(new String(vals[2]));
+		} catch (NumberFormatException e) {
+			throw new SSDBException("bad limit for " + cmd.getName() + ": " + new String(vals[2]), e);
+		}
+		Response resp = new Response();
+		resp.stat = "ok";
+		if (limit <= 0)
+			return resp;
+		int width = cmd == Cmd.scan || cmd == Cmd.rscan ? 2 : 1;
+		final boolean reverse = isReverse(cmd);
+		int n = ring.size();
+		// 按long计算, limit接近Integer.MAX_VALUE时不会溢出
+		long per = (long) limit / n;
+		int first = (int) Math.min(limit, per + per / 4 + 1);
+		Executor executor = scatter == null ? executor() : scatter;
+		Range[] ranges = new Range[n];
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		CompletableFuture<Response>[] futures = new CompletableFuture[n];
+		for (int i = 0; i < n; i++) {
+			ranges[i] = new Range(ring.getShards()[i], cmd, width, vals[0], vals[1], first, limit);
+			if (i < n - 1)
+				futures[i] = ranges[i].fetchAsync(first, executor);
+		}
+		RuntimeException error = null;
+		Response failed = null;
+		for (int i = 0; i < n; i++) {
+			try {
+				Response part = i < n - 1 ? futures[i].join() : ranges[i].fetch(first);
+				if (!part.ok() && failed == null)
+					failed = part;
+			} catch (CompletionException e) {
+				if (error == null)
+					error = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new SSDBException(e.getCause());
+			} catch (RuntimeException e) {
+				if (error == null)
+					error = e;
+			}
+		}
+		if (error != null)
+			throw error;
+		if (failed != null)
+			return failed;
+		PriorityQueue<Range> heap = new PriorityQueue<Range>(n, new Comparator<Range>() {
+			public int compare(Range a, Range b) {
+				int c = compareBytes(a.head(), b.head());
+				return reverse ? -c : c;
+			}
+		});
+		for (Range range : ranges)
+			if (range.hasHead())
+				heap.add(range);
+		int count = 0;
+		while (count < limit && !heap.isEmpty()) {
+			Range range = heap.poll();
+			range.pop(resp);
+			count++;
+			if (!range.hasHead() && !range.done && count < limit) {
+				Response part = range.fetch(limit - count);
+				if (!part.ok())
+					return part;
+			}
+			if (range.hasHead())
+				heap.add(range);
+		}
+		return resp;
+	}
+
+	/**
+	 * 一个节点上的范围读取进度
+	 */
+	protected static class Range {
+
+		protected final SSDBStream shard;
+		protected final Cmd cmd;
+		protected final int width;
+		protected final byte[] end;
+		protected final AdaptivePageSize pageSize;
+		protected byte[] start;
+		protected Response buffer;
+		protected int pos;
+		/** 最后一次取到的条数少于请求的条数, 该节点已没有更多数据 */
+		protected boolean done;
+
+		protected Range(SSDBStream shard, Cmd cmd, int width, byte[] start, byte[] end, int first, int limit) {
+			this.shard = shard;
+			this.cmd = cmd;
+			this.width = width;
+			this.start = start;
+			this.end = end;
+			this.pageSize = new AdaptivePageSize(first, Math.max(first, limit), 50, 4 * 1024 * 1024);
+		}
+
+		protected CompletableFuture<Response> fetchAsync(final int max, Executor executor) {
+			return CompletableFuture.supplyAsync(new Supplier<Response>() {
+				public Response get() {
+					return fetch(max);
+				}
+			}, executor);
+		}
+
+		/**
+		 * 从上次的最后一个键之后取一页, 最多max条
+		 */
+		protected Response fetch(int max) {
+			int size = Math.max(1, Math.min(pageSize.get(), max));
+			long begin = System.nanoTime();
+			Response resp = shard.req(cmd, start, end, SSDBs.num(size));
+			if (!resp.ok())
+				return resp;
+			long bytes = 0;
+			for (int i = 0; i < resp.size(); i++)
+				bytes += resp.len(i);
+			pageSize.update(System.nanoTime() - begin, bytes);
+			buffer = resp;
+			pos = 0;
+			done = resp.size() / width < size;
+			if (resp.size() >= width)
+				start = resp.get(resp.size() - width);
+			return resp;
+		}
+
+		protected boolean hasHead() {
+			return buffer != null && pos + width <= buffer.size();
+		}
+
+		protected byte[] head() {
+			return buffer.get(pos);
+		}
+
+		protected void pop(Response to) {
+			for (int i = 0; i < width; i++)
+				to.datas.add(buffer.get(pos + i));
+			pos += width;
+		}
+	}
+
+	protected static int compareBytes(byte[] a, byte[] b) {
+		int len = Math.min(a.length, b.length);
+		for (int i = 0; i < len; i++) {
+			int c = (a[i] & 0xff) - (b[i] & 0xff);
+			if (c != 0)
+				return c;
+		}
+		return a.length - b.length;
+	}
+
+	protected static boolean isRange(Cmd cmd) {
+		return cmd == Cmd.scan || cmd == Cmd.keys || cmd == Cmd.hlist || cmd == Cmd.zlist || cmd == Cmd.qlist
+				|| isReverse(cmd);
+	}
+
+	protected static boolean isReverse(Cmd cmd) {
+		return cmd == Cmd.rscan || cmd == Cmd.rkeys || cmd == Cmd.hrlist || cmd == Cmd.zrlist || cmd == Cmd.qrlist;
+	}
+
+	protected static boolean isBroadcast(Cmd cmd) {
+		return cmd == Cmd.flushdb || cmd == Cmd.compact || cmd == Cmd.ping;
+	}
+
+	/**
+	 * 多键命令中键的间隔, multi_set为键值交替, 不是多键命令时返回0
+	 */
+	protected static int keyStep(Cmd cmd) {
+		if (cmd == Cmd.multi_set)
+			return 2;
+		if (cmd == Cmd.multi_get || cmd == Cmd.multi_del || cmd == Cmd.multi_exists
+				|| cmd == Cmd.multi_zsize || cmd == Cmd.multi_hsize)
+			return 1;
+		return 0;
+	}
+
+	/**
+	 * 回调无法得知涉及的键, 请用shard(key)取得对应节点后再调用
+	 */
+	public void callback(SSDBStreamCallback callback) {
+		throw new SSDBException("callback not supported by sharded stream, use shard(key).callback");
+	}
+
+	/**
+	 * 键所属节点的连接
+	 */
+	public SSDBStream shard(byte[] key) {
+		return ring.locate(key);
+	}
+
+	/**
+	 * 增加一个节点, 不迁移数据
+	 */
+	public synchronized void addShard(String name, SSDBStream shard) {
+		ring = ring.add(name, shard);
+	}
+
+	/**
+	 * 移除一个节点, 不迁移数据, 也不关闭该节点的连接
+	 * @return 被移除节点的连接
+	 */
+	public synchronized SSDBStream removeShard(String name) {
+		HashRing ring = this.ring;
+		int index = ring.indexOf(name);
+		if (index < 0)
+			return null;
+		this.ring = ring.remove(name);
+		return ring.getShards()[index];
+	}
+
+	/**
+	 * 设置并行执行子请求的线程池, 为空时使用内部共享的线程池
+	 */
+	public void setExecutor(Executor executor) {
+		this.scatter = executor;
+	}
+
+	protected static synchronized ExecutorService executor() {
+		if (executor == null) {
+			executor = Executors.newCachedThreadPool(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "ssdb4j-shard");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return executor;
+	}
+
+	public HashRing getRing() {
+		return ring;
+	}
+
+	public void close() throws IOException {
+		IOException error = null;
+		for (SSDBStream shard : ring.getShards()) {
+			try {
+				shard.close();
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+		if (error != null)
+			throw error;
+	}
+}
@@ -0,0 +1,207 @@
+package org.nutz.ssdb4j.spi;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSDB接口的异步版本,命令集与SSDB一致,每个方法立即返回,响应到达时完成对应的Future.
+ * <p></p>对返回的Future调用cancel,若请求尚未发出则不再发送,否则丢弃其响应
+ */
+public interface AsyncSSDB extends Closeable {
+
+	/**根据key获取一个值*/
+	CompletableFuture<Response> get(Object key);
+	/**设置一个key-val对*/
+	CompletableFuture<Response> set(Object key, Object val);
+	/**设置一个key-val对,并设置过期时间,单位为秒*/
+	CompletableFuture<Response> setx(Object key, Object val, int ttl);
+	/**根据key删除一个val*/
+	CompletableFuture<Response> del(Object key);
+	/**自增*/
+	CompletableFuture<Response> incr(Object key, int val);
+	CompletableFuture<Response> decr(Object key, int val);
+	/**是否存在*/
+	CompletableFuture<Response> exists(Object key);
+	CompletableFuture<Response> multi_exists(Object... keys);
+	/**遍历键*/
+	CompletableFuture<Response> keys(Object start, Object end, int limit);
+	/**批量set*/
+	CompletableFuture<Response> multi_set(Object... pairs);
+	CompletableFuture<Response> multi_get(Object... keys);
+	/**批量删除*/
+	CompletableFuture<Response> multi_del(Object... keys);
+	
+	//-----
+	CompletableFuture<Response> scan(Object start, Object end, int limit);
+	CompletableFuture<Response> rscan(Object start, Object end, int limit);
+	//----
+	
+	CompletableFuture<Response> hset(Object key, Object hkey, Object hval);
+	CompletableFuture<Response> hdel(Object key, Object hkey);
+	CompletableFuture<Response> hget(Object key, Object hkey);
+	CompletableFuture<Response> hsize(Object key);
+	CompletableFuture<Response> hlist(Object key, Object hkey, int limit);
+	CompletableFuture<Response> hincr(Object key, Object hkey, int val);
+	CompletableFuture<Response> hdecr(Object key, Object hkey, int val);
+	//-----
+	CompletableFuture<Response> hscan(Object key, Object start, Object end, int limit);
+	CompletableFuture<Response> hrscan(Object key, Object start, Object end, int limit);
+	CompletableFuture<Response> hkeys(Object key, Object start, Object end, int limit);
+	CompletableFuture<Response> hexists(Object key, Object hkey);
+	CompletableFuture<Response> hclear(Object key);
+	CompletableFuture<Response> hgetall(Object key);
+	CompletableFuture<Response> hvals(Object key, Object start, Object end, int limit);
+	CompletableFuture<Response> multi_hget(Object key, Object... hkeys);
+	CompletableFuture<Response> multi_hset(Object key, Object... pairs);
+	CompletableFuture<Response> multi_hdel(Object key, Object... hkeys);
+	CompletableFuture<Response> multi_hexists(Object... keys);
+	CompletableFuture<Response> multi_hsize(Object... keys);
+	//-----
+	/*2014.05.15之前的官方驱动中参数类型是double,那是错误的*/
+	CompletableFuture<Response> zset(Object key, Object zkey, long score);
+	CompletableFuture<Response> zget(Object key, Object zkey);
+	CompletableFuture<Response> zdel(Object key, Object zkey);
+	CompletableFuture<Response> zincr(Object key, Object zkey, int val);
+	CompletableFuture<Response> zdecr(Object key, Object zkey, int val);
+	CompletableFuture<Response> zlist(Object key_start, Object key_end, int limit);
+	CompletableFuture<Response> zsize(Object key);
+	CompletableFuture<Response> zrank(Object key, Object zkey);
+	CompletableFuture<Response> zrrank(Object key, Object zkey);
+	CompletableFuture<Response> zexists(Object key, Object zkey);
+	CompletableFuture<Response> zclear(Object key);
+	
+	CompletableFuture<Response> zremrangebyrank(Object key, Object score_start, Object score_end);
+	CompletableFuture<Response> zremrangebyscore(Object key, Object score_start, Object score_end);
+	
+	CompletableFuture<Response> zkeys(Object key, Object zkey_start, Object score_start, Object score_end, int limit);
+	CompletableFuture<Response> zscan(Object key, Object zkey_start, Object score_start, Object score_end, int limit);
+	CompletableFuture<Response> zrscan(Object key, Object zkey_start, Object score_start, Object score_end, int limit);
+	
+	CompletableFuture<Response> zrange(Object key, int offset, int limit);
+	CompletableFuture<Response> zrrange(Object key, int offset, int limit);
+	
+	CompletableFuture<Response> multi_zset(Object key, Object... pairs);
+	CompletableFuture<Response> multi_zget(Object key, Object... zkeys);
+	CompletableFuture<Response> multi_zdel(Object key, Object... zkeys);
+	CompletableFuture<Response> multi_zexists(Object key, Object... zkeys);
+	CompletableFuture<Response> multi_zsize(Object... keys);
+	
+	//-----------
+	CompletableFuture<Response> qsize(Object key);
+	CompletableFuture<Response> qfront(Object key);
+	CompletableFuture<Response> qback(Object key);
+	CompletableFuture<Response> qpush(Object key, Object value);
+	CompletableFuture<Response> qpush_front(Object key, Object value);
+	CompletableFuture<Response> qpush_back(Object key, Object value);
+	CompletableFuture<Response> qpop(Object key);
+	CompletableFuture<Response> qpop_front(Object key);
+	CompletableFuture<Response> qpop_back(Object key);
+    CompletableFuture<Response> qpop_front(Object key, int limit);
+    CompletableFuture<Response> qpop_back(Object key, int limit);
+	CompletableFuture<Response> qfix(Object key);
+	CompletableFuture<Response> qlist(Object key_start, Object key_end, int limit);
+	CompletableFuture<Response> qclear(Object key);
+	CompletableFuture<Response> qrange(Object key, int begin, int limit);
+	
+	CompletableFuture<Response> flushdb(String type);
+	CompletableFuture<Response> info();
+	CompletableFuture<Response> ping();
+	
+	//---------------
+	
+	/**
+	 * 返回一个共享连接但带有截止时间的实例,注意: 返回值是新的AsyncSSDB实例!!
+	 * <p></p>通过该实例发出的每个请求,若在指定时间内未完成,其Future以TimeoutException失败
+	 * @param timeout 每个请求的最长时间
+	 * @param timeUnit 时间单位
+	 */
+	AsyncSSDB timeout(long timeout, TimeUnit timeUnit);
+	
+	/*=================================================================*/
+	/*==================add at 1.6.8.5=================================*/
+	/*=================================================================*/
+
+	/**如果key不存在,就执行set操作*/
+	CompletableFuture<Response> setnx(Object key, Object val);
+	/**取值并更新值*/
+	CompletableFuture<Response> getset(Object key, Object val);
+	
+	CompletableFuture<Response> qslice(Object key, int start, int end);
+	
+	CompletableFuture<Response> qget(Object key, int index);
+	
+	/*=================================================================*/
+	/*==================add at 1.6.8.6=================================*/
+	/*=================================================================*/
+	
+	CompletableFuture<Response> zcount(Object key, int start, int end);
+	CompletableFuture<Response> zsum(Object key, int start, int end);
+	CompletableFuture<Response> zavg(Object key, int start, int end);
+	
+	@Deprecated/**官方ssdb尚不支持*/
+	CompletableFuture<Response> eval(Object lua, Object... args);
+	@Deprecated/**官方ssdb尚不支持*/
+	CompletableFuture<Response> evalsha(Object sha1, Object... args);
+	
+	/*=================================================================*/
+	/*==================add at 1.6.8.7=================================*/
+	/*=================================================================*/
+	
+	CompletableFuture<Response> ttl(Object key);
+	CompletableFuture<Response> expire(Object key, int ttl);
+	
+	//------------------------------------------------------------------
+	CompletableFuture<Response> key_range();
+	CompletableFuture<Response> compact();
+	
+	/*=================================================================*/
+    /*==================add at 1.6.8.8=================================*/
+    /*=================================================================*/
+    CompletableFuture<Response> getbit(Object key, int offset);
+    CompletableFuture<Response> setbit(Object key, int offset, byte on);
+    CompletableFuture<Response> countbit(Object key, int start, int size);
+    CompletableFuture<Response> substr(Object key, int start, int size);
+    CompletableFuture<Response> getrange(Object key, int start, int size);
+    CompletableFuture<Response> strlen(Object key);
+    CompletableFuture<Response> redis_bitcount(Object key, int start, int size);
+    CompletableFuture<Response> hrlist(Object key, Object hkey, int limit);
+    CompletableFuture<Response> zrlist(Object zkey_start, Object zkey_end, int limit);
+    CompletableFuture<Response> qrlist(Object key_start, Object key_end, int limit);
+    
+    /*=================================================================*/
+    /*==================add at 1.7.0=================================*/
+    /*=================================================================*/
+    
+    CompletableFuture<Response> auth(String passwd);
+    CompletableFuture<Response> qtrim_front(Object key, int size);
+    CompletableFuture<Response> qtrim_back(Object key, int size);
+	
+    /*add at 1.8.0*/
+    CompletableFuture<Response> qset(Object key, int index, Object value);
+    CompletableFuture<Response> dbsize();
+    
+    /*will add at 1.9 ?*/
+    @Deprecated
+    CompletableFuture<Response> get_key_range();
+    CompletableFuture<Response> get_kv_range();
+    CompletableFuture<Response> set_kv_range(Object start, Object end);
+    CompletableFuture<Response> ignore_key_range();
+    CompletableFuture<Response> version();
+    CompletableFuture<Response> rkeys(Object start, Object end, int limit);
+	
+	/*=================================================================*/
+	/*==================一些管理方法,非ssdb指令=========================*/
+	/*=================================================================*/
+
+	void changeObjectConv(ObjectConv conv);
+	
+	CompletableFuture<Response> req(Cmd cmd, byte[]... values);
+	
+	/*=================================================================*/
+	/*==================内部命令?======================================*/
+	/*=================================================================*/
+	@Deprecated CompletableFuture<Response> dump();
+	@Deprecated CompletableFuture<Response> sync140();
+	@Deprecated CompletableFuture<Response> clear_binlog();
+}
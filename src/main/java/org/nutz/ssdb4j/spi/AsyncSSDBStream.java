@@ -0,0 +1,15 @@
+package org.nutz.ssdb4j.spi;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 支持异步请求的SSDBStream,同一连接上可同时存在多个未完成的请求
+ *
+ */
+public interface AsyncSSDBStream extends SSDBStream {
+
+	/**
+	 * 发送一个命令,立即返回,响应到达时完成返回的Future
+	 */
+	CompletableFuture<Response> reqAsync(Cmd cmd, byte[]... vals);
+}
@@ -0,0 +1,131 @@
+package org.nutz.ssdb4j.spi;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 整个响应帧保存在一个连续缓冲区中的Response, 只记录每个数据块的偏移和长度.
+ * <p></p>读取大量数据块(scan/hgetall/multi_get等)时不再为每个块分配byte[],
+ * asString/listString/asKeyValues等方法直接从缓冲区解码.
+ * <p></p><b>注意: datas字段不会被填充,请使用size/get/slice访问数据块</b>
+ *
+ */
+public class BufferResponse extends Response {
+
+	protected byte[] buf;
+	protected int length;
+	/** 第i个块的偏移为index[2i],长度为index[2i+1]. 第0块是状态 */
+	protected int[] index;
+	protected int blocks;
+
+	public BufferResponse() {
+		this(256);
+	}
+
+	public BufferResponse(int capacity) {
+		buf = new byte[capacity];
+		index = new int[16];
+	}
+
+	/**
+	 * 在缓冲区末尾为一个新块预留空间
+	 * @param len 块长度
+	 * @return 块在buffer()中的偏移,调用方负责向其中填充数据
+	 */
+	public int reserve(int len) {
+		if (length + len > buf.length) {
+			byte[] tmp = new byte[Math.max(buf.length * 2, length + len)];
+			System.arraycopy(buf, 0, tmp, 0, length);
+			buf = tmp;
+		}
+		if (blocks * 2 == index.length) {
+			int[] tmp = new int[index.length * 2];
+			System.arraycopy(index, 0, tmp, 0, index.length);
+			index = tmp;
+		}
+		int off = length;
+		index[blocks * 2] = off;
+		index[blocks * 2 + 1] = len;
+		blocks++;
+		length += len;
+		return off;
+	}
+
+	/**
+	 * 追加一个块(复制数据)
+	 */
+	public void add(byte[] data) {
+		int off = reserve(data.length);
+		System.arraycopy(data, 0, buf, off, data.length);
+	}
+
+	/**
+	 * 底层缓冲区,仅供读取响应的代码使用. 调用reserve后可能被替换
+	 */
+	public byte[] buffer() {
+		return buf;
+	}
+
+	public int size() {
+		return blocks == 0 ? 0 : blocks - 1;
+	}
+
+	public byte[] get(int i) {
+		byte[] data = new byte[len(i)];
+		System.arraycopy(buf, offset(i), data, 0, data.length);
+		return data;
+	}
+
+	/**
+	 * 数据块的只读视图,不复制数据
+	 */
+	public ByteBuffer slice(int i) {
+		return ByteBuffer.wrap(buf, offset(i), len(i)).slice().asReadOnlyBuffer();
+	}
+
+	public int offset(int i) {
+		check(i);
+		return index[(i + 1) * 2];
+	}
+
+	public int len(int i) {
+		check(i);
+		return index[(i + 1) * 2 + 1];
+	}
+
+	protected void check(int i) {
+		if (i < 0 || i >= size())
+			throw new IndexOutOfBoundsException("index=" + i + ", size=" + size());
+	}
+
+	protected String _string(int i) {
+		return new String(buf, offset(i), len(i), charset);
+	}
+
+	public int asInt() {
+		long n = asLong();
+		if (n != (int) n)
+			throw new NumberFormatException("For input string: \"" + asString() + "\"");
+		return (int) n;
+	}
+
+	public long asLong() {
+		if (size() == 0)
+			throw new NumberFormatException("null");
+		int off = offset(0);
+		int end = off + len(0);
+		if (off == end)
+			throw new NumberFormatException("empty");
+		boolean neg = buf[off] == '-';
+		// 只有符号没有数字时交给parseLong抛出异常
+		if (end - off > 18 || (neg && end - off == 1))
+			return Long.parseLong(asString());
+		long n = 0;
+		for (int p = neg ? off + 1 : off; p < end; p++) {
+			int d = buf[p] - '0';
+			if (d < 0 || d > 9)
+				return Long.parseLong(asString());
+			n = n * 10 + d;
+		}
+		return neg ? -n : n;
+	}
+}
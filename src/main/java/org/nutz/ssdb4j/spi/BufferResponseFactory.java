@@ -0,0 +1,12 @@
+package org.nutz.ssdb4j.spi;
+
+/**
+ * 生成BufferResponse的工厂,设置到SSDBs.respFactory即可启用
+ *
+ */
+public class BufferResponseFactory extends ResponseFactory {
+
+	public Response make() {
+		return new BufferResponse();
+	}
+}
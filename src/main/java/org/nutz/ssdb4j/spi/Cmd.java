@@ -20,22 +20,22 @@ public class Cmd {
 	public static final Cmd hdel = new Cmd("hdel", false, true);
 	public static final Cmd hget = new Cmd("hget", true, true);
 	public static final Cmd hsize = new Cmd("hsize", true, true);
-	public static final Cmd hlist = new Cmd("hlist", false, true);
+	public static final Cmd hlist = new Cmd("hlist", false, false);
 	public static final Cmd hincr = new Cmd("hincr", false, true);
 	public static final Cmd hscan = new Cmd("hscan", false, true);
 	public static final Cmd hrscan = new Cmd("hrscan", false, true);
 	public static final Cmd hkeys = new Cmd("hkeys", true, true);
 	public static final Cmd hexists = new Cmd("hexists", true, true);
 	public static final Cmd hclear = new Cmd("hclear", false, true);
-	public static final Cmd multi_hget = new Cmd("multi_hget", true, false);
-	public static final Cmd multi_hset = new Cmd("multi_hset", false, false);
-	public static final Cmd multi_hdel = new Cmd("multi_hdel", false, false);
+	public static final Cmd multi_hget = new Cmd("multi_hget", true, true);
+	public static final Cmd multi_hset = new Cmd("multi_hset", false, true);
+	public static final Cmd multi_hdel = new Cmd("multi_hdel", false, true);
 	public static final Cmd zset = new Cmd("zset", false, true);
 	public static final Cmd zget = new Cmd("zget", true, true);
 	public static final Cmd zdel = new Cmd("zdel", false, true);
 	public static final Cmd zincr = new Cmd("zincr", false, true);
 	public static final Cmd zsize = new Cmd("zsize", true, true);
-	public static final Cmd zlist = new Cmd("zlist", true, true);
+	public static final Cmd zlist = new Cmd("zlist", true, false);
 	public static final Cmd zrank = new Cmd("zrank", false, true);
 	public static final Cmd zrrank = new Cmd("zrrank", false, true);
 	public static final Cmd zexists = new Cmd("zexists", true, true);
@@ -47,18 +47,18 @@ public class Cmd {
 	public static final Cmd zrrange = new Cmd("zrrange", false, true);
 	public static final Cmd zpopfront = new Cmd("zpop_front", false, true);
 	public static final Cmd zpopback = new Cmd("zpop_back", false, true);
-	public static final Cmd multi_zset = new Cmd("multi_zset", false, false);
-	public static final Cmd multi_zget = new Cmd("multi_zget", true, false);
-	public static final Cmd multi_zdel = new Cmd("multi_zdel", false, false);
+	public static final Cmd multi_zset = new Cmd("multi_zset", false, true);
+	public static final Cmd multi_zget = new Cmd("multi_zget", true, true);
+	public static final Cmd multi_zdel = new Cmd("multi_zdel", false, true);
 	public static final Cmd qsize = new Cmd("qsize", true, true);
 	public static final Cmd qfront = new Cmd("qfront", false, true);
 	public static final Cmd qback = new Cmd("qback", false, true);
 	public static final Cmd qpush = new Cmd("qpush", false, true);
 	public static final Cmd qpop = new Cmd("qpop", false, true);
-	public static final Cmd qlist = new Cmd("qlist", false, true);
+	public static final Cmd qlist = new Cmd("qlist", false, false);
 	public static final Cmd qclear = new Cmd("qclear", false, true);
-	public static final Cmd flushdb = new Cmd("flushdb", false, true);
-	public static final Cmd info = new Cmd("info", false, true);
+	public static final Cmd flushdb = new Cmd("flushdb", false, false);
+	public static final Cmd info = new Cmd("info", false, false);
 
 	public static final Cmd setnx = new Cmd("setnx", false, true);
 	public static final Cmd getset = new Cmd("getset", false, true);
@@ -70,42 +70,63 @@ public class Cmd {
 
 	public static final Cmd ttl = new Cmd("ttl", false, true);
 
-	public static final Cmd hgetall = new Cmd("hgetall", false, false);
-	public static final Cmd zremrangebyrank = new Cmd("zremrangebyrank", false, false);
-	public static final Cmd zremrangebyscore = new Cmd("zremrangebyscore", false, false);
-	public static final Cmd multi_zexists = new Cmd("multi_zexists", false, false);
+	public static final Cmd hgetall = new Cmd("hgetall", false, true);
+	public static final Cmd zremrangebyrank = new Cmd("zremrangebyrank", false, true);
+	public static final Cmd zremrangebyscore = new Cmd("zremrangebyscore", false, true);
+	public static final Cmd multi_zexists = new Cmd("multi_zexists", false, true);
 	public static final Cmd multi_zsize = new Cmd("multi_zsize", false, false);
-	public static final Cmd qpush_front = new Cmd("qpush_front", false, false);
-	public static final Cmd qpush_back = new Cmd("qpush_back", false, false);
-	public static final Cmd qpop_front = new Cmd("qpop_front", false, false);
-	public static final Cmd qpop_back = new Cmd("qpop_back", false, false);
-	public static final Cmd qrange = new Cmd("qrange", false, false);
+	public static final Cmd qpush_front = new Cmd("qpush_front", false, true);
+	public static final Cmd qpush_back = new Cmd("qpush_back", false, true);
+	public static final Cmd qpop_front = new Cmd("qpop_front", false, true);
+	public static final Cmd qpop_back = new Cmd("qpop_back", false, true);
+	public static final Cmd qrange = new Cmd("qrange", false, true);
 	public static final Cmd sync140 = new Cmd("sync140", false, false);
-	public static final Cmd expire = new Cmd("expire", false, false);
+	public static final Cmd expire = new Cmd("expire", false, true);
 
-	public static final Cmd getbit = new Cmd("getbit", false, false);
-	public static final Cmd setbit = new Cmd("setbit", false, false);
-	public static final Cmd countbit = new Cmd("countbit", false, false);
-	public static final Cmd substr = new Cmd("substr", false, false);
-	public static final Cmd strlen = new Cmd("strlen", false, false);
+	public static final Cmd getbit = new Cmd("getbit", false, true);
+	public static final Cmd setbit = new Cmd("setbit", false, true);
+	public static final Cmd countbit = new Cmd("countbit", false, true);
+	public static final Cmd substr = new Cmd("substr", false, true);
+	public static final Cmd strlen = new Cmd("strlen", false, true);
 	public static final Cmd hrlist = new Cmd("hrlist", false, false);
 	public static final Cmd zrlist = new Cmd("zrlist", false, false);
 	public static final Cmd qrlist = new Cmd("qrlist", false, false);
 	public static final Cmd auth = new Cmd("auth", false, false);
 
-	public static final Cmd qtrim_front = new Cmd("qtrim_front", false, false);
-	public static final Cmd qtrim_back = new Cmd("qtrim_back", false, false);
+	public static final Cmd qtrim_front = new Cmd("qtrim_front", false, true);
+	public static final Cmd qtrim_back = new Cmd("qtrim_back", false, true);
 
-	public static final Cmd qset = new Cmd("qset", false, false);
+	public static final Cmd qset = new Cmd("qset", false, true);
 	public static final Cmd dbsize = new Cmd("dbsize", false, false);
 
 	public static final Cmd rkeys = new Cmd("rkeys", false, false);
 
-	public static final Cmd ping = new Cmd("ping", false, true);
+	public static final Cmd ping = new Cmd("ping", false, false);
 	public static final Cmd version = new Cmd("version", false, false);
 
+	public static final Cmd decr = new Cmd("decr", false, true);
+	public static final Cmd multi_exists = new Cmd("multi_exists", true, false);
+	public static final Cmd hdecr = new Cmd("hdecr", false, true);
+	public static final Cmd hvals = new Cmd("hvals", true, true);
+	public static final Cmd multi_hexists = new Cmd("multi_hexists", true, true);
+	public static final Cmd multi_hsize = new Cmd("multi_hsize", true, false);
+	public static final Cmd zdecr = new Cmd("zdecr", false, true);
+	public static final Cmd qfix = new Cmd("qfix", false, true);
+	public static final Cmd eval = new Cmd("eval", false, false);
+	public static final Cmd evalsha = new Cmd("evalsha", false, false);
+	public static final Cmd key_range = new Cmd("key_range", false, false);
+	public static final Cmd compact = new Cmd("compact", false, false);
+	public static final Cmd getrange = new Cmd("getrange", true, true);
+	public static final Cmd redis_bitcount = new Cmd("redis_bitcount", true, true);
+	public static final Cmd get_kv_range = new Cmd("get_kv_range", false, false);
+	public static final Cmd set_kv_range = new Cmd("set_kv_range", false, false);
+	public static final Cmd ignore_key_range = new Cmd("ignore_key_range", false, false);
+	public static final Cmd dump = new Cmd("dump", false, false);
+	public static final Cmd clear_binlog = new Cmd("clear_binlog", false, false);
+
 	protected String name;
 	protected byte[] bytes;
+	protected byte[] header;
 	protected boolean slave;
 	protected boolean partition;
 
@@ -113,6 +134,12 @@ public class Cmd {
 		super();
 		this.name = name;
 		this.bytes = name.toLowerCase().getBytes();
+		byte[] len = Integer.toString(bytes.length).getBytes();
+		this.header = new byte[len.length + bytes.length + 2];
+		System.arraycopy(len, 0, header, 0, len.length);
+		header[len.length] = '\n';
+		System.arraycopy(bytes, 0, header, len.length + 1, bytes.length);
+		header[header.length - 1] = '\n';
 		this.slave = slave;
 		this.partition = partition;
 	}
@@ -121,10 +148,20 @@ public class Cmd {
 		return bytes;
 	}
 
+	/**
+	 * 命令名按协议编码后的完整Block,包括长度前缀和换行符
+	 */
+	public byte[] header() {
+		return header;
+	}
+
 	public boolean isSlave() {
 		return slave;
 	}
 
+	/**
+	 * 是否只涉及第一个参数对应的一个键(或hash/zset/queue的名字), 分片时按第一个参数路由
+	 */
 	public boolean isPartition() {
 		return partition;
 	}
@@ -0,0 +1,103 @@
+package org.nutz.ssdb4j.spi;
+
+/**
+ * 连接参数, 时间单位均为毫秒, 0表示不超时. 缓冲区大小为0时使用系统默认值
+ * <p></p>小数据低延迟的场景建议打开tcpNoDelay, 大批量遍历的场景建议增大接收缓冲区和输入缓冲区
+ *
+ */
+public class ConnectionOptions {
+
+	/** 建立连接的超时 */
+	private int connectTimeout;
+	/** 读取响应的超时 */
+	private int readTimeout;
+	private boolean tcpNoDelay;
+	private boolean keepAlive;
+	/** SO_RCVBUF */
+	private int receiveBufferSize;
+	/** SO_SNDBUF */
+	private int sendBufferSize;
+	/** 客户端输入缓冲区大小 */
+	private int inputBufferSize = 8192;
+	/** 客户端输出缓冲区大小 */
+	private int outputBufferSize = 8192;
+
+	public ConnectionOptions() {
+	}
+
+	/**
+	 * 连接和读取使用相同的超时, 其余参数为默认值
+	 */
+	public ConnectionOptions(int timeout) {
+		this.connectTimeout = timeout;
+		this.readTimeout = timeout;
+	}
+
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	public void setReadTimeout(int readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+
+	public boolean isTcpNoDelay() {
+		return tcpNoDelay;
+	}
+
+	public void setTcpNoDelay(boolean tcpNoDelay) {
+		this.tcpNoDelay = tcpNoDelay;
+	}
+
+	public boolean isKeepAlive() {
+		return keepAlive;
+	}
+
+	public void setKeepAlive(boolean keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	public int getReceiveBufferSize() {
+		return receiveBufferSize;
+	}
+
+	public void setReceiveBufferSize(int receiveBufferSize) {
+		this.receiveBufferSize = receiveBufferSize;
+	}
+
+	public int getSendBufferSize() {
+		return sendBufferSize;
+	}
+
+	public void setSendBufferSize(int sendBufferSize) {
+		this.sendBufferSize = sendBufferSize;
+	}
+
+	public int getInputBufferSize() {
+		return inputBufferSize;
+	}
+
+	public void setInputBufferSize(int inputBufferSize) {
+		if (inputBufferSize < 1)
+			throw new IllegalArgumentException("buffer size must bigger than 0");
+		this.inputBufferSize = inputBufferSize;
+	}
+
+	public int getOutputBufferSize() {
+		return outputBufferSize;
+	}
+
+	public void setOutputBufferSize(int outputBufferSize) {
+		if (outputBufferSize < 32)
+			throw new IllegalArgumentException("buffer size must not less than 32");
+		this.outputBufferSize = outputBufferSize;
+	}
+}
@@ -0,0 +1,13 @@
+package org.nutz.ssdb4j.spi;
+
+import java.util.Iterator;
+
+/**
+ * 流式读取响应时的回调,迭代器在读取socket的同时逐个产生键值对
+ * <p></p><b>迭代器只在invoke执行期间有效</b>
+ *
+ */
+public interface KeyValueCallback {
+
+	void invoke(Iterator<KeyValue> it);
+}
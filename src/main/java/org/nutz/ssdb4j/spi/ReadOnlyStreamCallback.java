@@ -0,0 +1,9 @@
+package org.nutz.ssdb4j.spi;
+
+/**
+ * 只发送读命令的回调, 如scan/hgetall的流式读取.
+ * <p></p>读己之写的会话不会把这类回调记为写入; 其余回调无法判断是否写入, 一律视为写
+ *
+ */
+public interface ReadOnlyStreamCallback extends SSDBStreamCallback {
+}
@@ -2,7 +2,6 @@ package org.nutz.ssdb4j.spi;
 
 import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,10 +36,35 @@ public class Response {
 		return new String(data, charset);
 	}
 
+	protected String _string(int index) {
+		return _string(get(index));
+	}
+
+	/**
+	 * 数据块的数量,不包括状态
+	 */
+	public int size() {
+		return datas.size();
+	}
+
+	/**
+	 * 获取一个数据块
+	 */
+	public byte[] get(int index) {
+		return datas.get(index);
+	}
+
+	/**
+	 * 数据块的长度
+	 */
+	public int len(int index) {
+		return datas.get(index).length;
+	}
+
 	public String asString() {
-		if (datas.size() == 0)
+		if (size() == 0)
 			return null;
-		return _string(datas.get(0));
+		return _string(0);
 	}
 
 	public double asDouble() {
@@ -56,39 +80,41 @@ public class Response {
 	}
 
 	public List<String> listString() {
-		List<String> list = new ArrayList<String>();
-		for (byte[] data : datas) {
-			list.add(_string(data));
+		int size = size();
+		List<String> list = new ArrayList<String>(size);
+		for (int i = 0; i < size; i++) {
+			list.add(_string(i));
 		}
 		return list;
 	}
 
 	public Map<String, Object> map() {
-		if (datas.size() % 2 != 0)
+		int size = size();
+		if (size % 2 != 0)
 			throw new IllegalArgumentException("not key-value pairs");
 		Map<String, Object> map = new LinkedHashMap<String, Object>();
-		Iterator<byte[]> it = datas.iterator();
-		while (it.hasNext()) {
-			map.put(_string(it.next()), it.next());
+		for (int i = 0; i < size; i += 2) {
+			map.put(_string(i), get(i + 1));
 		}
 		return map;
 	}
 
 	public Map<String, String> mapString() {
-		if (datas.size() % 2 != 0)
+		int size = size();
+		if (size % 2 != 0)
 			throw new IllegalArgumentException("not key-value pairs");
 		Map<String, String> map = new LinkedHashMap<String, String>();
-		Iterator<byte[]> it = datas.iterator();
-		while (it.hasNext()) {
-			map.put(_string(it.next()), _string(it.next()));
+		for (int i = 0; i < size; i += 2) {
+			map.put(_string(i), _string(i + 1));
 		}
 		return map;
 	}
 
 	public String asBlocks(char joint) {
 		StringBuilder sb = new StringBuilder();
-		for (byte[] block : datas) {
-			sb.append(_string(block)).append(joint);
+		int size = size();
+		for (int i = 0; i < size; i++) {
+			sb.append(_string(i)).append(joint);
 		}
 		if (sb.length() > 0) {
 			sb.deleteCharAt(sb.length() - 1);
@@ -97,20 +123,22 @@ public class Response {
 	}
 
 	public List<KeyValue> asKeyValues() {
-		List<KeyValue> keyValues = new ArrayList<KeyValue>();
-		for (int i = 0; i + 1 < datas.size(); i += 2) {
-			String key = _string(datas.get(i));
-			String value = _string(datas.get(i + 1));
+		int size = size();
+		List<KeyValue> keyValues = new ArrayList<KeyValue>(size / 2);
+		for (int i = 0; i + 1 < size; i += 2) {
+			String key = _string(i);
+			String value = _string(i + 1);
 			keyValues.add(new KeyValue(key, value));
 		}
 		return keyValues;
 	}
 
 	public List<KeyValue> asKeyScores() {
-		List<KeyValue> keyValues = new ArrayList<KeyValue>();
-		for (int i = 0; i + 1 < datas.size(); i += 2) {
-			String key = _string(datas.get(i));
-			String value = _string(datas.get(i + 1));
+		int size = size();
+		List<KeyValue> keyValues = new ArrayList<KeyValue>(size / 2);
+		for (int i = 0; i + 1 < size; i += 2) {
+			String key = _string(i);
+			String value = _string(i + 1);
 			keyValues.add(new KeyValue(key, Long.parseLong(value)));
 		}
 		return keyValues;
@@ -111,13 +111,13 @@ public interface SSDB extends Closeable {
 	
 	/**
 	 * 批量执行,注意: 返回值是新的SSDB实例!!
-	 * <p></p>由于当前版本的服务器不支持pipe,所以均为客户端缓存,务必留意内存问题
+	 * <p></p>命令先缓存在客户端,exec时在同一连接上一次性发送,务必留意内存问题
 	 * 
 	 */
-	SSDB batch(); // TODO 支持命令合并机制
+	SSDB batch();
 	
 	/**
-	 * 将缓存中的命令发送到服务器并依次获取返回值
+	 * 将缓存中的命令一次性发送到服务器并依次获取返回值
 	 * @return 一系列响应
 	 */
 	List<Response> exec();
@@ -195,6 +195,21 @@ public interface SSDB extends Closeable {
     Response version();
     Response rkeys(Object start, Object end, int limit);
 	
+	/*=================================================================*/
+	/*==================流式读取=======================================*/
+	/*=================================================================*/
+	
+	/**
+	 * 以下方法在读取socket的同时把键值对逐个交给回调,不会把整个响应放入内存,适合limit很大的遍历
+	 * <p></p>回调执行期间独占一个连接,若回调提前返回,剩余数据会被读取并丢弃
+	 */
+	void scan(Object start, Object end, int limit, KeyValueCallback callback);
+	void rscan(Object start, Object end, int limit, KeyValueCallback callback);
+	void hscan(Object key, Object start, Object end, int limit, KeyValueCallback callback);
+	void hgetall(Object key, KeyValueCallback callback);
+	/**键值对的值为分数,使用KeyValue.getScore获取*/
+	void zscan(Object key, Object zkey_start, Object score_start, Object score_end, int limit, KeyValueCallback callback);
+	
 	/*=================================================================*/
 	/*==================一些管理方法,非ssdb指令=========================*/
 	/*=================================================================*/
@@ -0,0 +1,10 @@
+package org.nutz.ssdb4j.spi;
+
+/**
+ * 创建新连接的工厂,供连接池使用
+ *
+ */
+public interface SSDBStreamFactory {
+
+	SSDBStream create();
+}